@@ -3,7 +3,6 @@ package org.apache.cordova.firebase;
 import android.app.Activity;
 import android.app.NotificationManager;
 import android.app.NotificationChannel;
-import android.content.ContentResolver;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.media.RingtoneManager;
@@ -13,6 +12,10 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -20,7 +23,6 @@ import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
 import android.util.Base64;
-import android.util.Log;
 
 import com.google.firebase.auth.EmailAuthCredential;
 import com.google.firebase.auth.EmailAuthProvider;
@@ -75,22 +77,31 @@ import org.apache.cordova.CallbackContext;
 import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.PluginResult;
+import org.apache.cordova.firebase.FirebasePluginExecutors.Subsystem;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Random;
 import java.util.Set;
 import java.util.List;
 
 // Firebase PhoneAuth
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.firebase.FirebaseException;
 import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException;
@@ -123,15 +134,27 @@ public class FirebasePlugin extends CordovaPlugin {
     private static final String CRASHLYTICS_COLLECTION_ENABLED = "firebase_crashlytics_collection_enabled";
     private static final String ANALYTICS_COLLECTION_ENABLED = "firebase_analytics_collection_enabled";
     private static final String PERFORMANCE_COLLECTION_ENABLED = "firebase_performance_collection_enabled";
+    private static final String LAZY_INITIALIZATION = "FirebasePluginLazyInitialization";
+    private static final String STARTUP_TRACE = "FirebasePluginStartupTrace";
+    private static final String PRELOAD_RESOURCES = "FirebasePluginPreloadResources";
+    private static final String BATCH_TIMEOUT = "FirebasePluginBatchTimeout";
+    private static final int DEFAULT_BATCH_TIMEOUT_SECONDS = 30;
 
     private static boolean inBackground = true;
-    private static ArrayList<Bundle> notificationStack = null;
+    // Android pauses the activity before delivering a new intent, so a pause just beforehand means the app was in the foreground
+    private static final long NEW_INTENT_PAUSE_MS = 500;
+    private static long pausedAt = 0;
+    // Guards registration of the notification callback against messages being queued concurrently
+    private static final Object notificationLock = new Object();
     private static CallbackContext notificationCallbackContext;
     private static CallbackContext tokenRefreshCallbackContext;
     private static CallbackContext activityResultCallbackContext;
     private static CallbackContext authResultCallbackContext;
 
     private static NotificationChannel defaultNotificationChannel = null;
+    // IDs of the app's notification channels, populated on first use so channelExists() doesn't need a NotificationManager IPC
+    private static final Set<String> channelIndex = new HashSet<String>();
+    private static boolean channelIndexPopulated = false;
     public static String defaultChannelId = null;
     public static String defaultChannelName = null;
 
@@ -140,6 +163,18 @@ public class FirebasePlugin extends CordovaPlugin {
 
     private Map<String, ListenerRegistration> firestoreListeners = new HashMap<String, ListenerRegistration>();
 
+    // In-flight cancellable operations, keyed by the operation ID assigned by JS
+    private final Map<String, CancellableCallbackContext> operations = new ConcurrentHashMap<String, CancellableCallbackContext>();
+
+    // Subsystem initialization state: initialization itself is guarded by initializationLock,
+    // while readiness, actions queued until a subsystem is ready and which subsystems are dispatching them are guarded by pendingActions.
+    private final Object initializationLock = new Object();
+    private boolean coreInitialized = false;
+    private final Set<Subsystem> initializedSubsystems = EnumSet.noneOf(Subsystem.class);
+    private final Set<Subsystem> readySubsystems = EnumSet.of(Subsystem.PLUGIN, Subsystem.CONTINUATION);
+    private final Map<Subsystem, List<Runnable>> pendingActions = new EnumMap<Subsystem, List<Runnable>>(Subsystem.class);
+    private final Set<Subsystem> dispatchingSubsystems = EnumSet.noneOf(Subsystem.class);
+
     @Override
     protected void pluginInitialize() {
         instance = this;
@@ -147,234 +182,1068 @@ public class FirebasePlugin extends CordovaPlugin {
         applicationContext = cordovaActivity.getApplicationContext();
         final Bundle extras = cordovaActivity.getIntent().getExtras();
         FirebasePlugin.cordovaInterface = this.cordova;
+        FirebasePluginLog.configure(applicationContext, preferences);
+        FirebasePluginStartupProfile.begin(preferences.getBoolean(STARTUP_TRACE, false));
+        FirebasePluginExecutors.configure(preferences);
+        FirebasePluginEventChannel.configure(preferences);
+        FirebasePluginNotificationQueue.configure(preferences);
+        FirebasePluginMessageDeduplicator.configure(preferences);
+        FirebasePluginNotificationGroups.configure(applicationContext, preferences);
+        FirebasePluginNotificationRateLimiter.configure(applicationContext, preferences);
+        OnNotificationOpenReceiver.configure(applicationContext, preferences);
+        long phaseStart = FirebasePluginStartupProfile.start();
         firebaseCrashlytics = FirebaseCrashlytics.getInstance();
+        FirebasePluginStartupProfile.end("crashlytics_instance", phaseStart);
+        final boolean lazyInitialization = preferences.getBoolean(LAZY_INITIALIZATION, false);
         this.cordova.getThreadPool().execute(new Runnable() {
             public void run() {
                 try {
-                    Log.d(TAG, "Starting Firebase plugin");
+                    FirebasePluginLog.d(TAG, "Starting Firebase plugin");
+                    initializeCore();
 
-                    if(getMetaDataFromManifest(CRASHLYTICS_COLLECTION_ENABLED)){
-                        setPreference(CRASHLYTICS_COLLECTION_ENABLED, true);
+                    if (extras != null && extras.size() > 1) {
+                        if (extras.containsKey("google.message_id")) {
+                            if(!extras.containsKey("messageType")) extras.putString("messageType", "notification");
+                            extras.putString("tap", "background");
+                            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Notification message found on init: " + extras.toString());
+                            if (!FirebasePluginMessageDeduplicator.isDuplicate(applicationContext, extras)) {
+                                FirebasePluginNotificationQueue.add(applicationContext, extras);
+                            }
+                        }
                     }
 
-                    if(getMetaDataFromManifest(ANALYTICS_COLLECTION_ENABLED)){
-                        setPreference(ANALYTICS_COLLECTION_ENABLED, true);
+                    if(!lazyInitialization){
+                        for(Subsystem subsystem : Subsystem.values()){
+                            initializeSubsystem(subsystem);
+                        }
                     }
+                }catch (Exception e){
+                    handleExceptionWithoutContext(e);
+                }
+                FirebasePluginStartupProfile.complete();
+            }
+        });
+    }
+
+    /**
+     * Work required by every Firebase subsystem. Runs once, on the first thread to need it.
+     */
+    private void initializeCore() throws Exception {
+        synchronized (initializationLock) {
+            if(coreInitialized) return;
+
+            applyManifestPreference(CRASHLYTICS_COLLECTION_ENABLED);
+            applyManifestPreference(ANALYTICS_COLLECTION_ENABLED);
+            applyManifestPreference(PERFORMANCE_COLLECTION_ENABLED);
+
+            long phaseStart = FirebasePluginStartupProfile.start();
+            FirebaseApp.initializeApp(applicationContext);
+            FirebasePluginStartupProfile.end("firebase_app", phaseStart);
+
+            phaseStart = FirebasePluginStartupProfile.start();
+            defaultChannelId = getStringResource("default_notification_channel_id");
+            defaultChannelName = getStringResource("default_notification_channel_name");
+            FirebasePluginStartupProfile.end("channel_resources", phaseStart);
+            coreInitialized = true;
+        }
+    }
+
+    /**
+     * Caches the IDs of the resources used to display notifications, plus any listed in the FirebasePluginPreloadResources preference,
+     * so the first notification doesn't pay for looking them up.
+     */
+    private void preloadResources() {
+        FirebasePluginResources.preload(applicationContext, new String[]{
+                "drawable/" + FirebasePluginMessagingService.defaultSmallIconName,
+                "drawable/" + FirebasePluginMessagingService.defaultLargeIconName,
+                "color/accent"
+        });
+        String resources = preferences.getString(PRELOAD_RESOURCES, "");
+        if(!resources.isEmpty()){
+            FirebasePluginResources.preload(applicationContext, resources.split(","));
+        }
+    }
+
+    /**
+     * Copies a collection-enabled flag set in the manifest into the plugin's SharedPreferences.
+     */
+    private void applyManifestPreference(String name) throws Exception {
+        long phaseStart = FirebasePluginStartupProfile.start();
+        boolean enabled = getMetaDataFromManifest(name);
+        FirebasePluginStartupProfile.end("manifest_" + name, phaseStart);
+
+        if(enabled){
+            phaseStart = FirebasePluginStartupProfile.start();
+            setPreference(name, true);
+            FirebasePluginStartupProfile.end("preference_" + name, phaseStart);
+        }
+    }
 
-                    if(getMetaDataFromManifest(PERFORMANCE_COLLECTION_ENABLED)){
-                        setPreference(PERFORMANCE_COLLECTION_ENABLED, true);
+    /**
+     * Creates the Firebase components used by a subsystem, if not already created, then dispatches any actions
+     * which were queued while waiting for it.
+     * Blocks until initialization is complete so must not be called on the main or WebView threads.
+     */
+    private void initializeSubsystem(Subsystem subsystem) {
+        try {
+            synchronized (initializationLock) {
+                if(!initializedSubsystems.contains(subsystem)){
+                    initializeCore();
+                    long phaseStart = FirebasePluginStartupProfile.start();
+                    switch (subsystem) {
+                        case MESSAGING:
+                            preloadResources();
+                            createDefaultChannel();
+                            break;
+                        case ANALYTICS:
+                            mFirebaseAnalytics = FirebaseAnalytics.getInstance(applicationContext);
+                            break;
+                        case AUTH:
+                            authStateListener = new AuthStateListener();
+                            FirebaseAuth.getInstance().addAuthStateListener(authStateListener);
+                            break;
+                        case FIRESTORE:
+                            firestore = FirebaseFirestore.getInstance();
+                            gson = new Gson();
+                            break;
+                        default:
+                            break;
                     }
+                    FirebasePluginStartupProfile.end("subsystem_" + subsystem.name.toLowerCase(), phaseStart);
+                    initializedSubsystems.add(subsystem);
+                    if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Initialized " + subsystem.name + " subsystem");
+                }
+            }
+        } catch (Exception e) {
+            // Still mark the subsystem as ready so queued actions report their own errors rather than waiting forever
+            handleExceptionWithoutContext(e);
+        }
+
+        // Dispatch queued actions outside the lock, so they can't block callers of queueUntilInitialized().
+        // The subsystem is only marked ready once nothing is left queued, so actions arriving meanwhile
+        // are queued behind the ones being dispatched rather than overtaking them.
+        synchronized (pendingActions) {
+            // Another caller is already dispatching this subsystem's actions, and will pick up any queued since
+            if(readySubsystems.contains(subsystem) || !dispatchingSubsystems.add(subsystem)) return;
+        }
+        while(true){
+            List<Runnable> queued;
+            synchronized (pendingActions) {
+                queued = pendingActions.remove(subsystem);
+                if(queued == null || queued.isEmpty()){
+                    readySubsystems.add(subsystem);
+                    dispatchingSubsystems.remove(subsystem);
+                    return;
+                }
+                // Keep an empty list in place so new actions are queued without scheduling initialization again
+                pendingActions.put(subsystem, new ArrayList<Runnable>());
+            }
+            for(Runnable action : queued){
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * Queues an action if its subsystem is not yet ready, triggering initialization of the subsystem on a background thread.
+     *
+     * @return true if the action was queued, false if the subsystem is ready and the action can be dispatched now
+     */
+    private boolean queueUntilInitialized(final ActionHandler handler, final JSONArray args, final CallbackContext callbackContext, final long receivedNanos) {
+        final Subsystem subsystem = handler.subsystem;
+        synchronized (pendingActions) {
+            if(readySubsystems.contains(subsystem)) return false;
+
+            List<Runnable> queued = pendingActions.get(subsystem);
+            if(queued == null){
+                queued = new ArrayList<Runnable>();
+                pendingActions.put(subsystem, queued);
+                cordova.getThreadPool().execute(new Runnable() {
+                    public void run() {
+                        initializeSubsystem(subsystem);
+                    }
+                });
+            }
+            queued.add(new Runnable() {
+                public void run() {
+                    try {
+                        dispatchAction(handler, args, callbackContext, receivedNanos);
+                    } catch (Exception e) {
+                        handleExceptionWithContext(e, callbackContext);
+                    }
+                }
+            });
+            return true;
+        }
+    }
+
+    /**
+     * Initializes the named subsystems (or all of them if none are specified) ahead of their first use.
+     */
+    private void warmUp(final JSONArray subsystemNames, final CallbackContext callbackContext) {
+        try {
+            List<Subsystem> subsystems = new ArrayList<Subsystem>();
+            if(subsystemNames == null || subsystemNames.length() == 0){
+                subsystems.addAll(Arrays.asList(Subsystem.values()));
+            }else{
+                for(int i = 0; i < subsystemNames.length(); i++){
+                    String name = subsystemNames.getString(i);
+                    Subsystem subsystem = null;
+                    for(Subsystem candidate : Subsystem.values()){
+                        if(candidate.name.equalsIgnoreCase(name)){
+                            subsystem = candidate;
+                            break;
+                        }
+                    }
+                    if(subsystem == null){
+                        callbackContext.error("Unknown subsystem: " + name);
+                        return;
+                    }
+                    subsystems.add(subsystem);
+                }
+            }
+
+            for(Subsystem subsystem : subsystems){
+                initializeSubsystem(subsystem);
+            }
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
+    }
+
+    /**
+     * Registry of supported actions, keyed by action name.
+     * Built once so execute() resolves an action with a single hash lookup rather than walking a chain of string comparisons.
+     */
+    private static final Map<String, ActionHandler> actionHandlers = new HashMap<String, ActionHandler>();
+
+    static {
+        registerAction(new ActionHandler("getId", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getId(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("getToken", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getToken(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("hasPermission", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.hasPermission(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("subscribe", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.subscribe(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("unsubscribe", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.unsubscribe(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("isAutoInitEnabled", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.isAutoInitEnabled(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setAutoInitEnabled", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setAutoInitEnabled(callbackContext, args.getBoolean(0));
+            }
+        });
+        registerAction(new ActionHandler("unregister", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.unregister(callbackContext);
+            }
+        });
+        // On a worker since draining the queue reads and deletes its journal
+        registerAction(new ActionHandler("onMessageReceived", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                JSONObject options = args.optJSONObject(0);
+                plugin.onMessageReceived(options != null && options.optBoolean("deferQueued"), callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("onTokenRefresh", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.onTokenRefresh(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("logEvent", 2, ActionThread.WORKER, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.logEvent(callbackContext, args.getString(0), args.getJSONObject(1));
+            }
+        });
+        registerAction(new ActionHandler("logError", 1, ActionThread.WORKER, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.logError(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("setCrashlyticsUserId", 1, ActionThread.UI, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setCrashlyticsUserId(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("setScreenName", 1, ActionThread.UI, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setScreenName(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("setUserId", 1, ActionThread.WORKER, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setUserId(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("setUserProperty", 2, ActionThread.WORKER, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setUserProperty(callbackContext, args.getString(0), args.getString(1));
+            }
+        });
+        registerAction(new ActionHandler("activateFetched", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.activateFetched(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("fetchAndActivate", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.fetchAndActivate(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("fetch", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                if (!args.isNull(0)) {
+                    plugin.fetch(callbackContext, args.getLong(0));
+                } else {
+                    plugin.fetch(callbackContext);
+                }
+            }
+        }.cancellable(1));
+        registerAction(new ActionHandler("resetRemoteConfig", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.resetRemoteConfig(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("getValue", 1, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getValue(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("getInfo", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getInfo(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("getAll", 0, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getAll(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("didCrashOnPreviousExecution", 0, ActionThread.WORKER, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.didCrashOnPreviousExecution(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setConfigSettings", 2, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setConfigSettings(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("setDefaults", 1, ActionThread.WORKER, Subsystem.REMOTE_CONFIG) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setDefaults(callbackContext, args.getJSONObject(0));
+            }
+        });
+        registerAction(new ActionHandler("verifyPhoneNumber", 3, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.verifyPhoneNumber(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("setLanguageCode", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setLanguageCode(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("authenticateUserWithGoogle", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.authenticateUserWithGoogle(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("authenticateUserWithApple", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.authenticateUserWithApple(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("createUserWithEmailAndPassword", 2, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.createUserWithEmailAndPassword(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("signInUserWithEmailAndPassword", 2, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.signInUserWithEmailAndPassword(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("authenticateUserWithEmailAndPassword", 2, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.authenticateUserWithEmailAndPassword(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("signInUserWithCustomToken", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.signInUserWithCustomToken(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("signInUserAnonymously", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.signInUserAnonymously(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("signInWithCredential", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.signInWithCredential(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("linkUserWithCredential", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.linkUserWithCredential(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("reauthenticateWithCredential", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.reauthenticateWithCredential(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("isUserSignedIn", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.isUserSignedIn(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("signOutUser", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.signOutUser(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("getCurrentUser", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.getCurrentUser(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("reloadCurrentUser", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.reloadCurrentUser(callbackContext, args);
+            }
+        }.cancellable(0));
+        registerAction(new ActionHandler("updateUserProfile", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.updateUserProfile(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("updateUserEmail", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.updateUserEmail(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("sendUserEmailVerification", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.sendUserEmailVerification(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("updateUserPassword", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.updateUserPassword(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("sendUserPasswordResetEmail", 1, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.sendUserPasswordResetEmail(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("deleteUser", 0, ActionThread.WORKER, Subsystem.AUTH) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.deleteUser(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("startTrace", 1, ActionThread.WORKER, Subsystem.PERFORMANCE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.startTrace(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("incrementCounter", 2, ActionThread.WORKER, Subsystem.PERFORMANCE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.incrementCounter(callbackContext, args.getString(0), args.getString(1));
+            }
+        });
+        registerAction(new ActionHandler("stopTrace", 1, ActionThread.WORKER, Subsystem.PERFORMANCE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.stopTrace(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("setAnalyticsCollectionEnabled", 1, ActionThread.WORKER, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setAnalyticsCollectionEnabled(callbackContext, args.getBoolean(0));
+            }
+        });
+        registerAction(new ActionHandler("isAnalyticsCollectionEnabled", 0, ActionThread.WORKER, Subsystem.ANALYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.isAnalyticsCollectionEnabled(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setPerformanceCollectionEnabled", 1, ActionThread.WORKER, Subsystem.PERFORMANCE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setPerformanceCollectionEnabled(callbackContext, args.getBoolean(0));
+            }
+        });
+        registerAction(new ActionHandler("isPerformanceCollectionEnabled", 0, ActionThread.WORKER, Subsystem.PERFORMANCE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.isPerformanceCollectionEnabled(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setCrashlyticsCollectionEnabled", 1, ActionThread.WORKER, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setCrashlyticsCollectionEnabled(callbackContext, args.getBoolean(0));
+            }
+        });
+        registerAction(new ActionHandler("isCrashlyticsCollectionEnabled", 0, ActionThread.WORKER, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.isCrashlyticsCollectionEnabled(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("clearAllNotifications", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.clearAllNotifications(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setCrashlyticsCustomKey", 2, ActionThread.WORKER, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setCrashlyticsCustomKey(callbackContext, args);
+            }
+        });
+        registerAction(new ActionHandler("logMessage", 0, ActionThread.INLINE, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.logMessage(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("sendCrash", 0, ActionThread.INLINE, Subsystem.CRASHLYTICS) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.sendCrash(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("createChannel", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.createChannel(callbackContext, args.getJSONObject(0));
+            }
+        });
+        registerAction(new ActionHandler("createChannels", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.createChannels(callbackContext, args.getJSONArray(0));
+            }
+        });
+        registerAction(new ActionHandler("deleteChannel", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.deleteChannel(callbackContext, args.getString(0));
+            }
+        });
+        registerAction(new ActionHandler("listChannels", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.listChannels(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setDefaultChannel", 1, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setDefaultChannel(callbackContext, args.getJSONObject(0));
+            }
+        });
+        registerAction(new ActionHandler("addDocumentToFirestoreCollection", 2, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.addDocumentToFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("setDocumentInFirestoreCollection", 3, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.setDocumentInFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("updateDocumentInFirestoreCollection", 3, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.updateDocumentInFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("deleteDocumentFromFirestoreCollection", 2, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.deleteDocumentFromFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("documentExistsInFirestoreCollection", 2, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.documentExistsInFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("fetchDocumentInFirestoreCollection", 2, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.fetchDocumentInFirestoreCollection(args, callbackContext);
+            }
+        }.cancellable(2));
+        registerAction(new ActionHandler("fetchFirestoreCollection", 2, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.fetchFirestoreCollection(args, callbackContext);
+            }
+        }.cancellable(2));
+        registerAction(new ActionHandler("listenToDocumentInFirestoreCollection", 3, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.listenToDocumentInFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("listenToFirestoreCollection", 3, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.listenToFirestoreCollection(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("removeFirestoreListener", 1, ActionThread.WORKER, Subsystem.FIRESTORE) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.removeFirestoreListener(args, callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("executeBatch", 1, ActionThread.WORKER, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.executeBatch(args.getJSONArray(0), callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("registerEventChannel", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                FirebasePluginEventChannel.register(callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("acknowledgeEvents", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                FirebasePluginEventChannel.acknowledge();
+            }
+        });
+        registerAction(new ActionHandler("getEventChannelStats", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginEventChannel.getStats());
+            }
+        });
+        registerAction(new ActionHandler("cancelOperation", 1, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.cancelOperation(args.getString(0), callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("getPluginMetrics", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(getPluginMetrics());
+            }
+        });
+        registerAction(new ActionHandler("resetPluginMetrics", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                for(ActionHandler handler : actionHandlers.values()){
+                    handler.metrics.reset();
+                }
+                FirebasePluginMessagePipeline.resetStats();
+                FirebasePluginNotificationRateLimiter.resetStats();
+                callbackContext.success();
+            }
+        });
+        registerAction(new ActionHandler("warmUp", 0, ActionThread.WORKER, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                plugin.warmUp(args.optJSONArray(0), callbackContext);
+            }
+        });
+        registerAction(new ActionHandler("getStartupProfile", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginStartupProfile.toJson());
+            }
+        });
+        registerAction(new ActionHandler("getExecutorStats", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginExecutors.getStats());
+            }
+        });
+        registerAction(new ActionHandler("getQueuedMessages", 0, ActionThread.WORKER, Subsystem.MESSAGING) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                JSONObject options = args.optJSONObject(0);
+                if (options == null) options = new JSONObject();
+                long cursor = options.has("cursor") ? Long.parseLong(options.getString("cursor")) : 0;
+                callbackContext.success(FirebasePluginNotificationQueue.getPage(applicationContext, cursor, options.optInt("pageSize", 0)));
+            }
+        });
+        registerAction(new ActionHandler("getMessagePipelineStats", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginMessagePipeline.getStats());
+            }
+        });
+        registerAction(new ActionHandler("getDiagnostics", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                JSONArray diagnostics = FirebasePluginLog.getDiagnostics();
+                if (args.optBoolean(0)) {
+                    FirebasePluginLog.clearDiagnostics();
+                }
+                callbackContext.success(diagnostics);
+            }
+        });
+        registerAction(new ActionHandler("getLargeIconCacheStats", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginBitmapCache.getStats());
+            }
+        });
+        registerAction(new ActionHandler("getNotificationRateLimiterStats", 0, ActionThread.INLINE, Subsystem.PLUGIN) {
+            @Override
+            void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                callbackContext.success(FirebasePluginNotificationRateLimiter.getStats());
+            }
+        });
+
+        // Stubs for other platform methods
+        for (String stubAction : new String[]{"grantPermission", "setBadgeNumber", "getBadgeNumber"}) {
+            registerAction(new ActionHandler(stubAction, 0, ActionThread.INLINE, Subsystem.MESSAGING) {
+                @Override
+                void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception {
+                    callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, true));
+                }
+            });
+        }
+    }
+
+    private static void registerAction(ActionHandler handler) {
+        actionHandlers.put(handler.action, handler);
+    }
+
+    /**
+     * Returns the metrics of each action which has been called since the metrics were last reset, keyed by action name.
+     */
+    private static JSONObject getPluginMetrics() throws JSONException {
+        JSONObject actions = new JSONObject();
+        for(ActionHandler handler : actionHandlers.values()){
+            if(handler.metrics.hasCalls()){
+                actions.put(handler.action, handler.metrics.toJson());
+            }
+        }
+        JSONObject metrics = new JSONObject();
+        metrics.put("bucketBoundsMs", FirebasePluginActionMetrics.getBucketBounds());
+        metrics.put("actions", actions);
+        return metrics;
+    }
+
+    @Override
+    public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
+        long receivedNanos = SystemClock.elapsedRealtimeNanos();
+        try{
+            ActionHandler handler = actionHandlers.get(action);
+            if(handler == null){
+                callbackContext.error("Invalid action: " + action);
+                return false;
+            }
+            if(args.length() < handler.arity){
+                callbackContext.error("Invalid arguments for action: " + action + " - expected " + handler.arity + " but got " + args.length());
+                return false;
+            }
+            callbackContext = new InstrumentedCallbackContext(callbackContext, handler.metrics, receivedNanos);
+            if(handler.operationIdIndex >= 0 && !args.isNull(handler.operationIdIndex)){
+                String operationId = args.getString(handler.operationIdIndex);
+                CancellableCallbackContext operationContext = new CancellableCallbackContext(callbackContext, operationId, operations);
+                operations.put(operationId, operationContext);
+                callbackContext = operationContext;
+            }
+            dispatchAction(handler, args, callbackContext, receivedNanos);
+        }catch(Exception e){
+            handleExceptionWithContext(e, callbackContext);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Runs an action handler on the thread required by its threading policy.
+     * Worker actions are queued on the bounded executor for the action's subsystem.
+     * Actions for a subsystem which has not finished initializing are held back until it has.
+     *
+     * @param receivedNanos time at which the action arrived over the bridge, used to record how long it waited to run
+     */
+    private void dispatchAction(final ActionHandler handler, final JSONArray args, final CallbackContext callbackContext, final long receivedNanos) throws Exception {
+        if(queueUntilInitialized(handler, args, callbackContext, receivedNanos)){
+            return;
+        }
+
+        if(handler.thread == ActionThread.INLINE){
+            handler.metrics.recordQueueWait(SystemClock.elapsedRealtimeNanos() - receivedNanos);
+            handler.handle(this, args, callbackContext);
+            return;
+        }
+
+        Runnable runnable = new Runnable() {
+            public void run() {
+                if(isCancelled(callbackContext)) return;
+                try {
+                    handler.metrics.recordQueueWait(SystemClock.elapsedRealtimeNanos() - receivedNanos);
+                    handler.handle(FirebasePlugin.this, args, callbackContext);
+                } catch (Exception e) {
+                    handleExceptionWithContext(e, callbackContext);
+                }
+            }
+        };
+        if(handler.thread == ActionThread.UI){
+            cordovaActivity.runOnUiThread(runnable);
+        }else{
+            if(callbackContext instanceof CancellableCallbackContext){
+                ((CancellableCallbackContext) callbackContext).setQueuedTask(handler.subsystem, runnable);
+            }
+            try {
+                FirebasePluginExecutors.execute(handler.subsystem, runnable);
+            } catch (RejectedExecutionException e) {
+                callbackContext.error("Cannot run " + handler.action + " - " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cancels an in-flight operation: if it is still queued it is removed from its executor, otherwise its result is discarded
+     * (and any conversion of the result for JS skipped). The operation's callback receives an error.
+     */
+    private void cancelOperation(String operationId, CallbackContext callbackContext) {
+        CancellableCallbackContext operation = operations.remove(operationId);
+        if(operation != null && operation.cancel()){
+            callbackContext.success();
+        }else{
+            callbackContext.error("Operation not found or already complete: " + operationId);
+        }
+    }
+
+    private static boolean isCancelled(CallbackContext callbackContext) {
+        return callbackContext instanceof CancellableCallbackContext && ((CancellableCallbackContext) callbackContext).isCancelled();
+    }
+
+    /**
+     * Actions which cannot be run as part of a batch because they keep their callback open, wait on an activity
+     * or auth provider UI (so may not resolve their batch entry for a long time, if ever) or are themselves a batch.
+     */
+    private static final Set<String> nonBatchableActions = new HashSet<String>(Arrays.asList(
+            "executeBatch",
+            "cancelOperation",
+            "registerEventChannel",
+            "acknowledgeEvents",
+            "onMessageReceived",
+            "onTokenRefresh",
+            "verifyPhoneNumber",
+            "listenToDocumentInFirestoreCollection",
+            "listenToFirestoreCollection",
+            "authenticateUserWithGoogle",
+            "authenticateUserWithApple",
+            "signInWithCredential",
+            "reauthenticateWithCredential",
+            "sendCrash"
+    ));
+
+    private static Handler batchTimeoutHandler = null;
 
-                    FirebaseApp.initializeApp(applicationContext);
-                    mFirebaseAnalytics = FirebaseAnalytics.getInstance(applicationContext);
+    /**
+     * Runs a list of {action, args} operations, calling each action handler directly rather than re-entering execute() for each one.
+     * Worker operations are grouped by subsystem and each group is run as a single task on its subsystem's executor,
+     * so they're run in order with, and never concurrently with, other calls to that subsystem.
+     * Each operation resolves its own entry in the results array and a failed operation does not abort the rest of the batch.
+     * The batch callback is resolved once with the aggregated results after every operation has completed,
+     * or once FirebasePluginBatchTimeout seconds have passed, in which case operations which haven't completed are marked as failed.
+     */
+    private void executeBatch(final JSONArray operations, final CallbackContext callbackContext) {
+        final int count = operations.length();
+        final JSONArray results = new JSONArray();
+        if(count == 0){
+            callbackContext.success(results);
+            return;
+        }
 
-                    authStateListener = new AuthStateListener();
-                    FirebaseAuth.getInstance().addAuthStateListener(authStateListener);
+        final int timeoutSeconds = Math.max(1, preferences.getInteger(BATCH_TIMEOUT, DEFAULT_BATCH_TIMEOUT_SECONDS));
+        final List<BatchEntryCallbackContext> entries = new ArrayList<BatchEntryCallbackContext>(count);
+        final Runnable timeout = new Runnable() {
+            public void run() {
+                // Resolving the remaining entries sends the batch result, so do it off the main thread
+                FirebasePluginExecutors.execute(Subsystem.PLUGIN, new Runnable() {
+                    public void run() {
+                        for(BatchEntryCallbackContext entry : entries){
+                            entry.error("Timed out after " + timeoutSeconds + "s waiting for " + entry.action);
+                        }
+                    }
+                });
+            }
+        };
+        final AtomicInteger pending = new AtomicInteger(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new BatchEntryCallbackContext(callbackContext, results, i, pending, timeout));
+        }
+        synchronized (FirebasePlugin.class) {
+            if(batchTimeoutHandler == null){
+                batchTimeoutHandler = new Handler(Looper.getMainLooper());
+            }
+        }
+        batchTimeoutHandler.postDelayed(timeout, timeoutSeconds * 1000L);
+
+        Map<Subsystem, List<Runnable>> groups = new EnumMap<Subsystem, List<Runnable>>(Subsystem.class);
+        Map<Subsystem, List<CallbackContext>> groupContexts = new EnumMap<Subsystem, List<CallbackContext>>(Subsystem.class);
+        for (int i = 0; i < count; i++) {
+            final long receivedNanos = SystemClock.elapsedRealtimeNanos();
+            BatchEntryCallbackContext entryContext = entries.get(i);
+            CallbackContext resultContext = entryContext;
+            try {
+                JSONObject operation = operations.getJSONObject(i);
+                String action = operation.getString("action");
+                entryContext.action = action;
 
-                    firestore = FirebaseFirestore.getInstance();
-                    gson = new Gson();
+                JSONArray args = operation.optJSONArray("args");
+                if(args == null){
+                    args = new JSONArray();
+                }
 
-                    if (extras != null && extras.size() > 1) {
-                        if (FirebasePlugin.notificationStack == null) {
-                            FirebasePlugin.notificationStack = new ArrayList<Bundle>();
-                        }
-                        if (extras.containsKey("google.message_id")) {
-                            extras.putString("messageType", "notification");
-                            extras.putString("tap", "background");
-                            notificationStack.add(extras);
-                            Log.d(TAG, "Notification message found on init: " + extras.toString());
+                ActionHandler handler = actionHandlers.get(action);
+                if(handler == null || nonBatchableActions.contains(action)){
+                    entryContext.error("Invalid batch action: " + action);
+                }else if(args.length() < handler.arity){
+                    entryContext.error("Invalid arguments for action: " + action + " - expected " + handler.arity + " but got " + args.length());
+                }else{
+                    resultContext = new InstrumentedCallbackContext(entryContext, handler.metrics, receivedNanos);
+                    if(handler.thread == ActionThread.UI){
+                        dispatchAction(handler, args, resultContext, receivedNanos);
+                    }else{
+                        List<Runnable> group = groups.get(handler.subsystem);
+                        if(group == null){
+                            group = new ArrayList<Runnable>();
+                            groups.put(handler.subsystem, group);
+                            groupContexts.put(handler.subsystem, new ArrayList<CallbackContext>());
                         }
+                        final ActionHandler entryHandler = handler;
+                        final JSONArray entryArgs = args;
+                        final CallbackContext entryResultContext = resultContext;
+                        group.add(new Runnable() {
+                            public void run() {
+                                try {
+                                    entryHandler.metrics.recordQueueWait(SystemClock.elapsedRealtimeNanos() - receivedNanos);
+                                    entryHandler.handle(FirebasePlugin.this, entryArgs, entryResultContext);
+                                } catch (Exception e) {
+                                    handleExceptionWithContext(e, entryResultContext);
+                                }
+                            }
+                        });
+                        groupContexts.get(handler.subsystem).add(resultContext);
                     }
-                    defaultChannelId = getStringResource("default_notification_channel_id");
-                    defaultChannelName = getStringResource("default_notification_channel_name");
-                    createDefaultChannel();
-                }catch (Exception e){
-                    handleExceptionWithoutContext(e);
                 }
+            } catch (Exception e) {
+                handleExceptionWithContext(e, resultContext);
             }
-        });
-    }
+        }
 
-    @Override
-    public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
-        try{
-            if (action.equals("getId")) {
-                this.getId(callbackContext);
-            } else if (action.equals("getToken")) {
-                this.getToken(callbackContext);
-            } else if (action.equals("hasPermission")) {
-                this.hasPermission(callbackContext);
-            }else if (action.equals("subscribe")) {
-                this.subscribe(callbackContext, args.getString(0));
-            } else if (action.equals("unsubscribe")) {
-                this.unsubscribe(callbackContext, args.getString(0));
-            } else if (action.equals("isAutoInitEnabled")) {
-                isAutoInitEnabled(callbackContext);
-            } else if (action.equals("setAutoInitEnabled")) {
-                setAutoInitEnabled(callbackContext, args.getBoolean(0));
-            } else if (action.equals("unregister")) {
-                this.unregister(callbackContext);
-            } else if (action.equals("onMessageReceived")) {
-                this.onMessageReceived(callbackContext);
-            } else if (action.equals("onTokenRefresh")) {
-                this.onTokenRefresh(callbackContext);
-            } else if (action.equals("logEvent")) {
-                this.logEvent(callbackContext, args.getString(0), args.getJSONObject(1));
-            } else if (action.equals("logError")) {
-                this.logError(callbackContext, args);
-            }else if(action.equals("setCrashlyticsUserId")){
-                this.setCrashlyticsUserId(callbackContext, args.getString(0));
-            } else if (action.equals("setScreenName")) {
-                this.setScreenName(callbackContext, args.getString(0));
-            } else if (action.equals("setUserId")) {
-                this.setUserId(callbackContext, args.getString(0));
-            } else if (action.equals("setUserProperty")) {
-                this.setUserProperty(callbackContext, args.getString(0), args.getString(1));
-            } else if (action.equals("activateFetched")) {
-                this.activateFetched(callbackContext);
-            } else if (action.equals("fetchAndActivate")) {
-                this.fetchAndActivate(callbackContext);
-            } else if (action.equals("fetch")) {
-                if (args.length() > 0) {
-                    this.fetch(callbackContext, args.getLong(0));
-                } else {
-                    this.fetch(callbackContext);
+        for(Map.Entry<Subsystem, List<Runnable>> group : groups.entrySet()){
+            final List<Runnable> tasks = group.getValue();
+            // Dispatches any calls queued while the subsystem was initializing first, so the batch runs after them
+            initializeSubsystem(group.getKey());
+            try {
+                FirebasePluginExecutors.execute(group.getKey(), new Runnable() {
+                    public void run() {
+                        for(Runnable task : tasks){
+                            task.run();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                for(CallbackContext entryResultContext : groupContexts.get(group.getKey())){
+                    entryResultContext.error("Cannot run batch operation - " + e.getMessage());
                 }
-            } else if (action.equals("resetRemoteConfig")) {
-                this.resetRemoteConfig(callbackContext);
-            } else if (action.equals("getValue")) {
-                this.getValue(callbackContext, args.getString(0));
-            } else if (action.equals("getInfo")) {
-                this.getInfo(callbackContext);
-            } else if (action.equals("getAll")) {
-                this.getAll(callbackContext);
-            } else if (action.equals("didCrashOnPreviousExecution")) {
-                this.didCrashOnPreviousExecution(callbackContext);
-
-            } else if (action.equals("setConfigSettings")) {
-                this.setConfigSettings(callbackContext, args);
-
-            } else if (action.equals("setDefaults")) {
-                this.setDefaults(callbackContext, args.getJSONObject(0));
-
-            } else if (action.equals("verifyPhoneNumber")) {
-                this.verifyPhoneNumber(callbackContext, args);
-            } else if (action.equals("setLanguageCode")) {
-                this.setLanguageCode(callbackContext, args);
-            } else if (action.equals("authenticateUserWithGoogle")) {
-                this.authenticateUserWithGoogle(callbackContext, args);
-            } else if (action.equals("authenticateUserWithApple")) {
-                this.authenticateUserWithApple(callbackContext, args);
-            } else if (action.equals("createUserWithEmailAndPassword")) {
-                this.createUserWithEmailAndPassword(callbackContext, args);
-            } else if (action.equals("signInUserWithEmailAndPassword")) {
-                this.signInUserWithEmailAndPassword(callbackContext, args);
-            } else if (action.equals("authenticateUserWithEmailAndPassword")) {
-                this.authenticateUserWithEmailAndPassword(callbackContext, args);
-            } else if (action.equals("signInUserWithCustomToken")) {
-                this.signInUserWithCustomToken(callbackContext, args);
-            } else if (action.equals("signInUserAnonymously")) {
-                this.signInUserAnonymously(callbackContext);
-            } else if (action.equals("signInWithCredential")) {
-                this.signInWithCredential(callbackContext, args);
-            } else if (action.equals("linkUserWithCredential")) {
-                this.linkUserWithCredential(callbackContext, args);
-            } else if (action.equals("reauthenticateWithCredential")) {
-                this.reauthenticateWithCredential(callbackContext, args);
-            } else if (action.equals("isUserSignedIn")) {
-                this.isUserSignedIn(callbackContext, args);
-            } else if (action.equals("signOutUser")) {
-                this.signOutUser(callbackContext, args);
-            } else if (action.equals("getCurrentUser")) {
-                this.getCurrentUser(callbackContext, args);
-            } else if (action.equals("reloadCurrentUser")) {
-                this.reloadCurrentUser(callbackContext, args);
-            } else if (action.equals("updateUserProfile")) {
-                this.updateUserProfile(callbackContext, args);
-            } else if (action.equals("updateUserEmail")) {
-                this.updateUserEmail(callbackContext, args);
-            } else if (action.equals("sendUserEmailVerification")) {
-                this.sendUserEmailVerification(callbackContext, args);
-            } else if (action.equals("updateUserPassword")) {
-                this.updateUserPassword(callbackContext, args);
-            } else if (action.equals("sendUserPasswordResetEmail")) {
-                this.sendUserPasswordResetEmail(callbackContext, args);
-            } else if (action.equals("deleteUser")) {
-                this.deleteUser(callbackContext, args);
-            } else if (action.equals("startTrace")) {
-                this.startTrace(callbackContext, args.getString(0));
-            } else if (action.equals("incrementCounter")) {
-                this.incrementCounter(callbackContext, args.getString(0), args.getString(1));
-            } else if (action.equals("stopTrace")) {
-                this.stopTrace(callbackContext, args.getString(0));
-            } else if (action.equals("setAnalyticsCollectionEnabled")) {
-                this.setAnalyticsCollectionEnabled(callbackContext, args.getBoolean(0));
-            } else if (action.equals("isAnalyticsCollectionEnabled")) {
-                this.isAnalyticsCollectionEnabled(callbackContext);
-            } else if (action.equals("setPerformanceCollectionEnabled")) {
-                this.setPerformanceCollectionEnabled(callbackContext, args.getBoolean(0));
-            } else if (action.equals("isPerformanceCollectionEnabled")) {
-                this.isPerformanceCollectionEnabled(callbackContext);
-            } else if (action.equals("setCrashlyticsCollectionEnabled")) {
-                this.setCrashlyticsCollectionEnabled(callbackContext, args.getBoolean(0));
-            } else if (action.equals("isCrashlyticsCollectionEnabled")) {
-                this.isCrashlyticsCollectionEnabled(callbackContext);
-            } else if (action.equals("clearAllNotifications")) {
-                this.clearAllNotifications(callbackContext);
-            } else if (action.equals("setCrashlyticsCustomKey")) {
-                this.setCrashlyticsCustomKey(callbackContext, args);
-            } else if (action.equals("logMessage")) {
-                logMessage(args, callbackContext);
-            } else if (action.equals("sendCrash")) {
-                sendCrash(args, callbackContext);
-            } else if (action.equals("createChannel")) {
-                this.createChannel(callbackContext, args.getJSONObject(0));
-            } else if (action.equals("deleteChannel")) {
-                this.deleteChannel(callbackContext, args.getString(0));
-            } else if (action.equals("listChannels")) {
-                this.listChannels(callbackContext);
-            } else if (action.equals("setDefaultChannel")) {
-                this.setDefaultChannel(callbackContext, args.getJSONObject(0));
-            } else if (action.equals("addDocumentToFirestoreCollection")) {
-                this.addDocumentToFirestoreCollection(args, callbackContext);
-            } else if (action.equals("setDocumentInFirestoreCollection")) {
-                this.setDocumentInFirestoreCollection(args, callbackContext);
-            } else if (action.equals("updateDocumentInFirestoreCollection")) {
-                this.updateDocumentInFirestoreCollection(args, callbackContext);
-            } else if (action.equals("deleteDocumentFromFirestoreCollection")) {
-                this.deleteDocumentFromFirestoreCollection(args, callbackContext);
-            } else if (action.equals("documentExistsInFirestoreCollection")) {
-                this.documentExistsInFirestoreCollection(args, callbackContext);
-            } else if (action.equals("fetchDocumentInFirestoreCollection")) {
-                this.fetchDocumentInFirestoreCollection(args, callbackContext);
-            } else if (action.equals("fetchFirestoreCollection")) {
-                this.fetchFirestoreCollection(args, callbackContext);
-            } else if (action.equals("listenToDocumentInFirestoreCollection")) {
-                this.listenToDocumentInFirestoreCollection(args, callbackContext);
-            } else if (action.equals("listenToFirestoreCollection")) {
-                this.listenToFirestoreCollection(args, callbackContext);
-            } else if (action.equals("removeFirestoreListener")) {
-                this.removeFirestoreListener(args, callbackContext);
-            } else if (action.equals("grantPermission")
-                    || action.equals("setBadgeNumber")
-                    || action.equals("getBadgeNumber")
-                    ) {
-                // Stubs for other platform methods
-                callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, true));
-            }else{
-                callbackContext.error("Invalid action: " + action);
-                return false;
             }
-        }catch(Exception e){
-            handleExceptionWithContext(e, callbackContext);
-            return false;
         }
-        return true;
     }
 
     @Override
     public void onPause(boolean multitasking) {
         FirebasePlugin.inBackground = true;
+        pausedAt = SystemClock.elapsedRealtime();
     }
 
     @Override
@@ -388,11 +1257,14 @@ public class FirebasePlugin extends CordovaPlugin {
         FirebasePlugin.tokenRefreshCallbackContext = null;
         FirebasePlugin.activityResultCallbackContext = null;
         FirebasePlugin.authResultCallbackContext = null;
+        FirebasePluginEventChannel.unregister();
     }
 
     @Override
     public void onDestroy() {
-        FirebaseAuth.getInstance().removeAuthStateListener(authStateListener);
+        if(authStateListener != null){
+            FirebaseAuth.getInstance().removeAuthStateListener(authStateListener);
+        }
         instance = null;
         cordovaActivity = null;
         cordovaInterface = null;
@@ -438,57 +1310,82 @@ public class FirebasePlugin extends CordovaPlugin {
      * @return Resource
      */
     private String getStringResource(String name) {
-        return applicationContext.getString(
-                applicationContext.getResources().getIdentifier(
-                        name, "string", applicationContext.getPackageName()
-                )
-        );
+        return applicationContext.getString(FirebasePluginResources.getIdentifier(applicationContext, name, "string"));
     }
 
-    private void onMessageReceived(final CallbackContext callbackContext) {
-        FirebasePlugin.notificationCallbackContext = callbackContext;
-        if (FirebasePlugin.notificationStack != null) {
-            for (Bundle bundle : FirebasePlugin.notificationStack) {
-                FirebasePlugin.sendMessage(bundle, applicationContext);
-            }
-            FirebasePlugin.notificationStack.clear();
+    /**
+     * @param deferQueued if true, messages queued before the callback was registered are left for JS to fetch via getQueuedMessages()
+     */
+    private void onMessageReceived(boolean deferQueued, final CallbackContext callbackContext) {
+        List<Bundle> queued;
+        synchronized (notificationLock) {
+            FirebasePlugin.notificationCallbackContext = callbackContext;
+            if (deferQueued) return;
+            queued = FirebasePluginNotificationQueue.drain(applicationContext);
+        }
+        for (Bundle bundle : queued) {
+            FirebasePlugin.deliverMessage(bundle);
         }
     }
 
     private void onTokenRefresh(final CallbackContext callbackContext) {
         FirebasePlugin.tokenRefreshCallbackContext = callbackContext;
 
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String currentToken = FirebaseInstanceId.getInstance().getToken();
-                    if (currentToken != null) {
-                        FirebasePlugin.sendToken(currentToken);
-                    }
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            String currentToken = FirebasePluginTokenCache.getToken(applicationContext);
+            if (currentToken != null) {
+                FirebasePlugin.sendToken(currentToken);
             }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public static void sendMessage(Bundle bundle, Context context) {
-        if (!FirebasePlugin.hasNotificationsCallback()) {
-            String packageName = context.getPackageName();
-            if (FirebasePlugin.notificationStack == null) {
-                FirebasePlugin.notificationStack = new ArrayList<Bundle>();
+        if (FirebasePluginMessageDeduplicator.isDuplicate(context, bundle)) return;
+
+        synchronized (notificationLock) {
+            if (!FirebasePlugin.hasNotificationsCallback()) {
+                FirebasePluginNotificationQueue.add(context, bundle);
+                return;
             }
-            notificationStack.add(bundle);
+        }
+        deliverMessage(bundle);
+    }
 
-            return;
+    /**
+     * Sends a message from the messaging service's pipeline (so already checked for duplicates), only converting it to a Bundle if it needs to be queued or passed to a receiver.
+     */
+    public static void sendMessage(FirebasePluginMessage message, Context context) throws JSONException {
+        synchronized (notificationLock) {
+            if (!FirebasePlugin.hasNotificationsCallback()) {
+                FirebasePluginNotificationQueue.add(context, message.toBundle());
+                return;
+            }
         }
+        if (FirebasePluginMessageReceiverManager.hasReceivers()) {
+            deliverMessage(message.toBundle(), message.getData());
+        } else if (FirebasePlugin.notificationCallbackContext != null) {
+            FirebasePluginEventChannel.post(FirebasePluginEventChannel.MESSAGE, message.toJson());
+        }
+    }
+
+    private static void deliverMessage(Bundle bundle) {
+        deliverMessage(bundle, null);
+    }
 
+    /**
+     * Passes a message which has already been checked for duplicates to any registered receivers or else to JS.
+     *
+     * @param data (optional) the message's data payload, if it's been parsed
+     */
+    private static void deliverMessage(Bundle bundle, Map<String, String> data) {
         final CallbackContext callbackContext = FirebasePlugin.notificationCallbackContext;
         if(bundle != null){
             // Pass the message bundle to the receiver manager so any registered receivers can decide to handle it
-            boolean wasHandled = FirebasePluginMessageReceiverManager.sendMessage(bundle);
+            boolean wasHandled = FirebasePluginMessageReceiverManager.sendMessage(bundle, data);
             if (wasHandled) {
-                Log.d(TAG, "Message bundle was handled by a registered receiver");
+                FirebasePluginLog.d(TAG, "Message bundle was handled by a registered receiver");
             }else if (callbackContext != null) {
                 JSONObject json = new JSONObject();
                 Set<String> keys = bundle.keySet();
@@ -500,19 +1397,16 @@ public class FirebasePlugin extends CordovaPlugin {
                         return;
                     }
                 }
-                FirebasePlugin.instance.sendPluginResultAndKeepCallback(json, callbackContext);
+                FirebasePluginEventChannel.post(FirebasePluginEventChannel.MESSAGE, json);
             }
         }
     }
 
     public static void sendToken(String token) {
-        if (FirebasePlugin.tokenRefreshCallbackContext == null) {
-            return;
-        }
-
-        final CallbackContext callbackContext = FirebasePlugin.tokenRefreshCallbackContext;
-        if (callbackContext != null && token != null) {
-            FirebasePlugin.instance.sendPluginResultAndKeepCallback(token, callbackContext);
+        // Sent whether or not JS has registered onTokenRefresh(), which sends the current token when it does;
+        // only the latest token is kept while the event channel is waiting to deliver
+        if (token != null) {
+            FirebasePluginEventChannel.postLatest(FirebasePluginEventChannel.TOKEN_REFRESH, FirebasePluginEventChannel.TOKEN_REFRESH, token);
         }
     }
 
@@ -530,9 +1424,12 @@ public class FirebasePlugin extends CordovaPlugin {
             super.onNewIntent(intent);
             final Bundle data = intent.getExtras();
             if (data != null && data.containsKey("google.message_id")) {
-                data.putString("messageType", "notification");
-                data.putString("tap", "background");
-                Log.d(TAG, "Notification message on new intent: " + data.toString());
+                if(!data.containsKey("messageType")) data.putString("messageType", "notification");
+                // Notifications opened via OnNotificationOpenReceiver have already been delivered with the tap set, so are dropped as duplicates:
+                // the activity is only opened directly in the "activity" tap mode, or by system notifications
+                boolean wasInForeground = SystemClock.elapsedRealtime() - pausedAt < NEW_INTENT_PAUSE_MS;
+                data.putString("tap", wasInForeground ? "foreground" : "background");
+                if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Notification message on new intent: " + data.toString());
                 FirebasePlugin.sendMessage(data, applicationContext);
             }
         }catch (Exception e){
@@ -542,111 +1439,82 @@ public class FirebasePlugin extends CordovaPlugin {
 
 
     private void getId(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String id = FirebaseInstanceId.getInstance().getId();
-                    callbackContext.success(id);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            String id = FirebasePluginTokenCache.getId(applicationContext);
+            callbackContext.success(id);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void getToken(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String token = FirebaseInstanceId.getInstance().getToken();
-                    callbackContext.success(token);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            String token = FirebasePluginTokenCache.getToken(applicationContext);
+            callbackContext.success(token);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void hasPermission(final CallbackContext callbackContext) {
-        if(cordovaActivity == null) return;
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    NotificationManagerCompat notificationManagerCompat = NotificationManagerCompat.from(cordovaActivity);
-                    boolean areNotificationsEnabled = notificationManagerCompat.areNotificationsEnabled();
-                    callbackContext.success(conformBooleanForPluginResult(areNotificationsEnabled));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        if(cordovaActivity == null){
+            callbackContext.error("Cordova activity is not available");
+            return;
+        }
+        try {
+            NotificationManagerCompat notificationManagerCompat = NotificationManagerCompat.from(cordovaActivity);
+            boolean areNotificationsEnabled = notificationManagerCompat.areNotificationsEnabled();
+            callbackContext.success(conformBooleanForPluginResult(areNotificationsEnabled));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void subscribe(final CallbackContext callbackContext, final String topic) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleTaskOutcome(FirebaseMessaging.getInstance().subscribeToTopic(topic), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleTaskOutcome(FirebaseMessaging.getInstance().subscribeToTopic(topic), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void unsubscribe(final CallbackContext callbackContext, final String topic) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleTaskOutcome(FirebaseMessaging.getInstance().unsubscribeFromTopic(topic), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleTaskOutcome(FirebaseMessaging.getInstance().unsubscribeFromTopic(topic), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void unregister(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseInstanceId.getInstance().deleteInstanceId();
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            FirebaseInstanceId.getInstance().deleteInstanceId();
+            FirebasePluginTokenCache.invalidate(applicationContext);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void isAutoInitEnabled(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    boolean isEnabled = FirebaseMessaging.getInstance().isAutoInitEnabled();
-                    callbackContext.success(conformBooleanForPluginResult(isEnabled));
-                } catch (Exception e) {
-                    logExceptionToCrashlytics(e);
-                    callbackContext.error(e.getMessage());
-                }
-            }
-        });
+        try {
+            boolean isEnabled = FirebaseMessaging.getInstance().isAutoInitEnabled();
+            callbackContext.success(conformBooleanForPluginResult(isEnabled));
+        } catch (Exception e) {
+            logExceptionToCrashlytics(e);
+            callbackContext.error(e.getMessage());
+        }
     }
 
     private void setAutoInitEnabled(final CallbackContext callbackContext, final boolean enabled) {
-        final FirebasePlugin self = this;
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseMessaging.getInstance().setAutoInitEnabled(enabled);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    logExceptionToCrashlytics(e);
-                    e.printStackTrace();
-                    callbackContext.error(e.getMessage());
-                }
-            }
-        });
+        try {
+            FirebaseMessaging.getInstance().setAutoInitEnabled(enabled);
+            callbackContext.success();
+        } catch (Exception e) {
+            logExceptionToCrashlytics(e);
+            e.printStackTrace();
+            callbackContext.error(e.getMessage());
+        }
     }
 
     private void logEvent(final CallbackContext callbackContext, final String name, final JSONObject params)
@@ -664,92 +1532,80 @@ public class FirebasePlugin extends CordovaPlugin {
             }
         }
 
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    mFirebaseAnalytics.logEvent(name, bundle);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            mFirebaseAnalytics.logEvent(name, bundle);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void logError(final CallbackContext callbackContext, final JSONArray args) throws JSONException {
         final String message = args.getString(0);
 
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    if(isCrashlyticsEnabled()) {
-                        // We can optionally be passed a stack trace generated by stacktrace.js.
-                        if (args.length() == 2) {
-                            JSONArray stackTrace = args.getJSONArray(1);
-                            StackTraceElement[] trace = new StackTraceElement[stackTrace.length()];
-                            for (int i = 0; i < stackTrace.length(); i++) {
-                                JSONObject elem = stackTrace.getJSONObject(i);
-                                trace[i] = new StackTraceElement(
-                                        "",
-                                        elem.optString("functionName", "(anonymous function)"),
-                                        elem.optString("fileName", "(unknown file)"),
-                                        elem.optInt("lineNumber", -1)
-                                );
-                            }
-
-                            Exception e = new JavaScriptException(message);
-                            e.setStackTrace(trace);
-                            logExceptionToCrashlytics(e);
-                        } else {
-                            logExceptionToCrashlytics(new JavaScriptException(message));
-                        }
-
-                        Log.e(TAG, message);
-                        callbackContext.success(1);
-                    }else{
-                        callbackContext.error("Cannot log error - Crashlytics collection is disabled");
+        try {
+            if(isCrashlyticsEnabled()) {
+                // We can optionally be passed a stack trace generated by stacktrace.js.
+                if (args.length() == 2) {
+                    JSONArray stackTrace = args.getJSONArray(1);
+                    StackTraceElement[] trace = new StackTraceElement[stackTrace.length()];
+                    for (int i = 0; i < stackTrace.length(); i++) {
+                        JSONObject elem = stackTrace.getJSONObject(i);
+                        trace[i] = new StackTraceElement(
+                                "",
+                                elem.optString("functionName", "(anonymous function)"),
+                                elem.optString("fileName", "(unknown file)"),
+                                elem.optInt("lineNumber", -1)
+                        );
                     }
-                } catch (Exception e) {
+
+                    Exception e = new JavaScriptException(message);
+                    e.setStackTrace(trace);
                     logExceptionToCrashlytics(e);
-                    callbackContext.error(e.getMessage());
+                } else {
+                    logExceptionToCrashlytics(new JavaScriptException(message));
                 }
+
+                FirebasePluginLog.e(TAG, message);
+                callbackContext.success(1);
+            }else{
+                callbackContext.error("Cannot log error - Crashlytics collection is disabled");
             }
-        });
+        } catch (Exception e) {
+            logExceptionToCrashlytics(e);
+            callbackContext.error(e.getMessage());
+        }
     }
 
     private void setCrashlyticsCustomKey(final CallbackContext callbackContext, final JSONArray data) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                if(isCrashlyticsEnabled()){
-                    try {
-                        Object value = data.get(1);
-                        // Floats can be omitted since they're not passed through JSONArray
-                        if(value instanceof Integer) {
-                            firebaseCrashlytics.setCustomKey(data.getString(0), data.getInt(1));
-                            callbackContext.success();
-                        }else if (value instanceof Double) {
-                            firebaseCrashlytics.setCustomKey(data.getString(0), data.getDouble(1));
-                            callbackContext.success();
-                        }else if (value instanceof Long) {
-                            firebaseCrashlytics.setCustomKey(data.getString(0), data.getLong(1));
-                            callbackContext.success();
-                        }else if (value instanceof String) {
-                            firebaseCrashlytics.setCustomKey(data.getString(0), data.getString(1));
-                            callbackContext.success();
-                        }else if (value instanceof Boolean) {
-                            firebaseCrashlytics.setCustomKey(data.getString(0), data.getBoolean(1));
-                            callbackContext.success();
-                        }else {
-                            callbackContext.error("Cannot set custom key - Value is not an acceptable type");
-                        }
-                    }catch(Exception e) {
-                        handleExceptionWithContext(e, callbackContext);
-                    }
-                }else{
-                    callbackContext.error("Cannot set custom key - Crashlytics collection is disabled");
+        if(isCrashlyticsEnabled()){
+            try {
+                Object value = data.get(1);
+                // Floats can be omitted since they're not passed through JSONArray
+                if(value instanceof Integer) {
+                    firebaseCrashlytics.setCustomKey(data.getString(0), data.getInt(1));
+                    callbackContext.success();
+                }else if (value instanceof Double) {
+                    firebaseCrashlytics.setCustomKey(data.getString(0), data.getDouble(1));
+                    callbackContext.success();
+                }else if (value instanceof Long) {
+                    firebaseCrashlytics.setCustomKey(data.getString(0), data.getLong(1));
+                    callbackContext.success();
+                }else if (value instanceof String) {
+                    firebaseCrashlytics.setCustomKey(data.getString(0), data.getString(1));
+                    callbackContext.success();
+                }else if (value instanceof Boolean) {
+                    firebaseCrashlytics.setCustomKey(data.getString(0), data.getBoolean(1));
+                    callbackContext.success();
+                }else {
+                    callbackContext.error("Cannot set custom key - Value is not an acceptable type");
                 }
+            }catch(Exception e) {
+                handleExceptionWithContext(e, callbackContext);
             }
-        });
+        }else{
+            callbackContext.error("Cannot set custom key - Crashlytics collection is disabled");
+        }
     }
 
     private void logMessage(final JSONArray data,
@@ -777,60 +1633,44 @@ public class FirebasePlugin extends CordovaPlugin {
 
 
     private void setCrashlyticsUserId(final CallbackContext callbackContext, final String userId) {
-        cordovaActivity.runOnUiThread(new Runnable() {
-            public void run() {
-                try {
-                    if(isCrashlyticsEnabled()){
-                        firebaseCrashlytics.setUserId(userId);
-                        callbackContext.success();
-                    }else{
-                        callbackContext.error("Cannot set Crashlytics user ID - Crashlytics collection is disabled");
-                    }
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            if(isCrashlyticsEnabled()){
+                firebaseCrashlytics.setUserId(userId);
+                callbackContext.success();
+            }else{
+                callbackContext.error("Cannot set Crashlytics user ID - Crashlytics collection is disabled");
             }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void setScreenName(final CallbackContext callbackContext, final String name) {
         // This must be called on the main thread
-        cordovaActivity.runOnUiThread(new Runnable() {
-            public void run() {
-                try {
-                    mFirebaseAnalytics.setCurrentScreen(cordovaActivity, name, null);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
-    }
-
-    private void setUserId(final CallbackContext callbackContext, final String id) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    mFirebaseAnalytics.setUserId(id);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            mFirebaseAnalytics.setCurrentScreen(cordovaActivity, name, null);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
+    }
+
+    private void setUserId(final CallbackContext callbackContext, final String id) {
+        try {
+            mFirebaseAnalytics.setUserId(id);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void setUserProperty(final CallbackContext callbackContext, final String name, final String value) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    mFirebaseAnalytics.setUserProperty(name, value);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            mFirebaseAnalytics.setUserProperty(name, value);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void fetch(CallbackContext callbackContext) {
@@ -842,156 +1682,116 @@ public class FirebasePlugin extends CordovaPlugin {
     }
 
     private void fetch(final CallbackContext callbackContext, final Task<Void> task) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleTaskOutcome(task, callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleTaskOutcome(task, callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void activateFetched(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleBooleanTaskOutcome(FirebaseRemoteConfig.getInstance().activate(), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleBooleanTaskOutcome(FirebaseRemoteConfig.getInstance().activate(), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void fetchAndActivate(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleBooleanTaskOutcome(FirebaseRemoteConfig.getInstance().fetchAndActivate(), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleBooleanTaskOutcome(FirebaseRemoteConfig.getInstance().fetchAndActivate(), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void resetRemoteConfig(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleTaskOutcome(FirebaseRemoteConfig.getInstance().reset(), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleTaskOutcome(FirebaseRemoteConfig.getInstance().reset(), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void getValue(final CallbackContext callbackContext, final String key) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseRemoteConfigValue value = FirebaseRemoteConfig.getInstance().getValue(key);
-                    callbackContext.success(value.asString());
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            FirebaseRemoteConfigValue value = FirebaseRemoteConfig.getInstance().getValue(key);
+            callbackContext.success(value.asString());
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void getInfo(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseRemoteConfigInfo remoteConfigInfo = FirebaseRemoteConfig.getInstance().getInfo();
-                    JSONObject info = new JSONObject();
+        try {
+            FirebaseRemoteConfigInfo remoteConfigInfo = FirebaseRemoteConfig.getInstance().getInfo();
+            JSONObject info = new JSONObject();
 
-                    JSONObject settings = new JSONObject();
-                    settings.put("developerModeEnabled", remoteConfigInfo.getConfigSettings().isDeveloperModeEnabled());
-                    info.put("configSettings", settings);
+            JSONObject settings = new JSONObject();
+            settings.put("developerModeEnabled", remoteConfigInfo.getConfigSettings().isDeveloperModeEnabled());
+            info.put("configSettings", settings);
 
-                    info.put("fetchTimeMillis", remoteConfigInfo.getFetchTimeMillis());
-                    info.put("lastFetchStatus", remoteConfigInfo.getLastFetchStatus());
+            info.put("fetchTimeMillis", remoteConfigInfo.getFetchTimeMillis());
+            info.put("lastFetchStatus", remoteConfigInfo.getLastFetchStatus());
 
-                    callbackContext.success(info);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+            callbackContext.success(info);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void getAll(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    Map<String, FirebaseRemoteConfigValue> nativeValues = FirebaseRemoteConfig.getInstance().getAll();
-                    JSONObject jsonValues = new JSONObject();
+        try {
+            Map<String, FirebaseRemoteConfigValue> nativeValues = FirebaseRemoteConfig.getInstance().getAll();
+            JSONObject jsonValues = new JSONObject();
 
-                    for (Map.Entry<String, FirebaseRemoteConfigValue> entry : nativeValues.entrySet()) {
-                        String key = entry.getKey();
-                        FirebaseRemoteConfigValue value = entry.getValue();
-                        jsonValues.put(key, value.asString());
-                    }
-                    callbackContext.success(jsonValues);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            for (Map.Entry<String, FirebaseRemoteConfigValue> entry : nativeValues.entrySet()) {
+                String key = entry.getKey();
+                FirebaseRemoteConfigValue value = entry.getValue();
+                jsonValues.put(key, value.asString());
             }
-        });
+            callbackContext.success(jsonValues);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
-	
-	private void setConfigSettings(final CallbackContext callbackContext, final JSONArray args) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseRemoteConfigSettings.Builder settings = new FirebaseRemoteConfigSettings.Builder();
 
-                    if(args.get(0) != null){
-                        settings.setFetchTimeoutInSeconds(args.getLong(0));
-                    }
+    private void setConfigSettings(final CallbackContext callbackContext, final JSONArray args) throws JSONException {
+        try {
+            FirebaseRemoteConfigSettings.Builder settings = new FirebaseRemoteConfigSettings.Builder();
 
-                    if(args.get(1) != null){
-                        settings.setMinimumFetchIntervalInSeconds(args.getLong(1));
-                    }
+            if(args.get(0) != null){
+                settings.setFetchTimeoutInSeconds(args.getLong(0));
+            }
 
-                    handleTaskOutcome(FirebaseRemoteConfig.getInstance().setConfigSettingsAsync(settings.build()), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            if(args.get(1) != null){
+                settings.setMinimumFetchIntervalInSeconds(args.getLong(1));
             }
-        });
+
+            handleTaskOutcome(FirebaseRemoteConfig.getInstance().setConfigSettingsAsync(settings.build()), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void setDefaults(final CallbackContext callbackContext, final JSONObject defaults) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    handleTaskOutcome(FirebaseRemoteConfig.getInstance().setDefaultsAsync(defaultsToMap(defaults)), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            handleTaskOutcome(FirebaseRemoteConfig.getInstance().setDefaultsAsync(defaultsToMap(defaults)), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void didCrashOnPreviousExecution(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                if(isCrashlyticsEnabled()){
-                    try {
-                        callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, firebaseCrashlytics.didCrashOnPreviousExecution()));
-                    } catch (Exception e) {
-                        handleExceptionWithContext(e, callbackContext);
-                    }
-                } else{
-                    callbackContext.error("Cannot query didCrashOnPreviousExecution - Crashlytics collection is disabled");
-                }
+        if(isCrashlyticsEnabled()){
+            try {
+                callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, firebaseCrashlytics.didCrashOnPreviousExecution()));
+            } catch (Exception e) {
+                handleExceptionWithContext(e, callbackContext);
             }
-        });
+        } else{
+            callbackContext.error("Cannot query didCrashOnPreviousExecution - Crashlytics collection is disabled");
+        }
     }
 
     private static Map<String, Object> defaultsToMap(JSONObject object) throws JSONException {
@@ -1025,88 +1825,79 @@ public class FirebasePlugin extends CordovaPlugin {
 
 
     public void isUserSignedIn(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    boolean isSignedIn = FirebaseAuth.getInstance().getCurrentUser() != null;
-                    callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, isSignedIn));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            boolean isSignedIn = FirebaseAuth.getInstance().getCurrentUser() != null;
+            callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, isSignedIn));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void signOutUser(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-                    // Sign out of Firebase
-                    FirebaseAuth.getInstance().signOut();
-
-                    // Try to sign out of Google
-                    try{
-                        GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN).build();
-                        GoogleSignInClient mGoogleSignInClient = GoogleSignIn.getClient(cordovaActivity, gso);
-                        handleTaskOutcome(mGoogleSignInClient.signOut(), callbackContext);
-                    }catch(Exception googleSignOutException){
-                        callbackContext.success();
-                    }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
+            }
+            // Sign out of Firebase
+            FirebaseAuth.getInstance().signOut();
 
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            // Try to sign out of Google
+            try{
+                GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN).build();
+                GoogleSignInClient mGoogleSignInClient = GoogleSignIn.getClient(cordovaActivity, gso);
+                handleTaskOutcome(mGoogleSignInClient.signOut(), callbackContext);
+            }catch(Exception googleSignOutException){
+                callbackContext.success();
             }
-        });
+
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void getCurrentUser(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-                    extractAndReturnUserInfo(callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+            extractAndReturnUserInfo(callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void reloadCurrentUser(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-                    user.reload()
-                            .addOnSuccessListener(new OnSuccessListener<Void>() {
-                                @Override
-                                public void onSuccess(Void aVoid) {
-                                    try {
-                                        extractAndReturnUserInfo(callbackContext);
-                                    } catch (Exception e) {
-                                        handleExceptionWithContext(e, callbackContext);
-                                    }
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+            user.reload()
+                    .addOnSuccessListener(FirebasePluginExecutors.getContinuationExecutor(), new OnSuccessListener<Void>() {
+                        @Override
+                        public void onSuccess(Void aVoid) {
+                            if (isCancelled(callbackContext)) return;
+                            try {
+                                extractAndReturnUserInfo(callbackContext);
+                            } catch (Exception e) {
+                                handleExceptionWithContext(e, callbackContext);
+                            }
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void extractAndReturnUserInfo(final CallbackContext callbackContext) throws Exception{
@@ -1121,7 +1912,7 @@ public class FirebasePlugin extends CordovaPlugin {
         returnResults.put("providerId", user.getIdToken(false).getResult().getSignInProvider());
         returnResults.put("isAnonymous", user.isAnonymous());
 
-        user.getIdToken(true).addOnSuccessListener(new OnSuccessListener<GetTokenResult>() {
+        user.getIdToken(true).addOnSuccessListener(FirebasePluginExecutors.getContinuationExecutor(), new OnSuccessListener<GetTokenResult>() {
             @Override
             public void onSuccess(GetTokenResult result) {
                 try {
@@ -1136,231 +1927,195 @@ public class FirebasePlugin extends CordovaPlugin {
     }
 
     public void updateUserProfile(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-
-                    JSONObject profile = args.getJSONObject(0);
-                    UserProfileChangeRequest profileUpdates;
-                    if(profile.has("name") && profile.has("photoUri")){
-                        profileUpdates = new UserProfileChangeRequest.Builder()
-                                .setDisplayName(profile.getString("name"))
-                                .setPhotoUri(Uri.parse(profile.getString("photoUri")))
-                                .build();
-                    }else if(profile.has("name")){
-                        profileUpdates = new UserProfileChangeRequest.Builder()
-                                .setDisplayName(profile.getString("name"))
-                                .build();
-                    }else if(profile.has("photoUri")){
-                        profileUpdates = new UserProfileChangeRequest.Builder()
-                                .setPhotoUri(Uri.parse(profile.getString("photoUri")))
-                                .build();
-                    }else{
-                        callbackContext.error("'name' and/or 'photoUri' keys must be specified in the profile object");
-                        return;
-                    }
-
-                    handleTaskOutcome(user.updateProfile(profileUpdates), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
+            }
+
+            JSONObject profile = args.getJSONObject(0);
+            UserProfileChangeRequest profileUpdates;
+            if(profile.has("name") && profile.has("photoUri")){
+                profileUpdates = new UserProfileChangeRequest.Builder()
+                        .setDisplayName(profile.getString("name"))
+                        .setPhotoUri(Uri.parse(profile.getString("photoUri")))
+                        .build();
+            }else if(profile.has("name")){
+                profileUpdates = new UserProfileChangeRequest.Builder()
+                        .setDisplayName(profile.getString("name"))
+                        .build();
+            }else if(profile.has("photoUri")){
+                profileUpdates = new UserProfileChangeRequest.Builder()
+                        .setPhotoUri(Uri.parse(profile.getString("photoUri")))
+                        .build();
+            }else{
+                callbackContext.error("'name' and/or 'photoUri' keys must be specified in the profile object");
+                return;
             }
-        });
+
+            handleTaskOutcome(user.updateProfile(profileUpdates), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void updateUserEmail(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-
-                    String email = args.getString(0);
-                    handleTaskOutcome(user.updateEmail(email), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+
+            String email = args.getString(0);
+            handleTaskOutcome(user.updateEmail(email), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void sendUserEmailVerification(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-
-                    handleTaskOutcome(user.sendEmailVerification(), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+
+            handleTaskOutcome(user.sendEmailVerification(), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void updateUserPassword(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-
-                    String password = args.getString(0);
-                    handleTaskOutcome(user.updatePassword(password), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+
+            String password = args.getString(0);
+            handleTaskOutcome(user.updatePassword(password), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void sendUserPasswordResetEmail(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseAuth auth = FirebaseAuth.getInstance();
-                    String email = args.getString(0);
-                    handleTaskOutcome(auth.sendPasswordResetEmail(email), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            FirebaseAuth auth = FirebaseAuth.getInstance();
+            String email = args.getString(0);
+            handleTaskOutcome(auth.sendPasswordResetEmail(email), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void deleteUser(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
-                    handleTaskOutcome(user.delete(), callbackContext);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
             }
-        });
+            handleTaskOutcome(user.delete(), callbackContext);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void reauthenticateWithCredential(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-                    if(user == null){
-                        callbackContext.error("No user is currently signed");
-                        return;
-                    }
+        try {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if(user == null){
+                callbackContext.error("No user is currently signed");
+                return;
+            }
 
-                    JSONObject jsonCredential = args.getJSONObject(0);
-                    if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
-                        callbackContext.error("No auth credentials specified");
-                        return;
-                    }
+            JSONObject jsonCredential = args.getJSONObject(0);
+            if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
+                callbackContext.error("No auth credentials specified");
+                return;
+            }
 
-                    AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
-                    if(authCredential != null){
-                        handleTaskOutcome(user.reauthenticate(authCredential), callbackContext);
-                        return;
-                    }
+            AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
+            if(authCredential != null){
+                handleTaskOutcome(user.reauthenticate(authCredential), callbackContext);
+                return;
+            }
 
-                    OAuthProvider authProvider = FirebasePlugin.instance.obtainAuthProvider(jsonCredential);
-                    if(authProvider != null){
-                        FirebasePlugin.instance.authResultCallbackContext = callbackContext;
-                        user.startActivityForReauthenticateWithProvider(FirebasePlugin.cordovaActivity, authProvider)
-                                .addOnSuccessListener(new AuthResultOnSuccessListener())
-                                .addOnFailureListener(new AuthResultOnFailureListener());
-                        return;
-                    }
+            OAuthProvider authProvider = FirebasePlugin.instance.obtainAuthProvider(jsonCredential);
+            if(authProvider != null){
+                FirebasePlugin.instance.authResultCallbackContext = callbackContext;
+                user.startActivityForReauthenticateWithProvider(FirebasePlugin.cordovaActivity, authProvider)
+                        .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnSuccessListener())
+                        .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnFailureListener());
+                return;
+            }
 
-                    //ELSE
-                    callbackContext.error("Specified native auth credential id does not exist");
+            //ELSE
+            callbackContext.error("Specified native auth credential id does not exist");
 
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
 
 
     public void signInWithCredential(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    JSONObject jsonCredential = args.getJSONObject(0);
-                    if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
-                        callbackContext.error("No auth credentials specified");
-                        return;
-                    }
-
-                    AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
-                    if(authCredential != null){
-                        FirebaseAuth.getInstance().signInWithCredential(authCredential).addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                        return;
-                    }
+        try {
+            JSONObject jsonCredential = args.getJSONObject(0);
+            if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
+                callbackContext.error("No auth credentials specified");
+                return;
+            }
 
-                    OAuthProvider authProvider = FirebasePlugin.instance.obtainAuthProvider(jsonCredential);
-                    if(authProvider != null){
-                        FirebasePlugin.instance.authResultCallbackContext = callbackContext;
-                        FirebaseAuth.getInstance().startActivityForSignInWithProvider(FirebasePlugin.cordovaActivity, authProvider)
-                                .addOnSuccessListener(new AuthResultOnSuccessListener())
-                                .addOnFailureListener(new AuthResultOnFailureListener());
-                        return;
-                    }
+            AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
+            if(authCredential != null){
+                FirebaseAuth.getInstance().signInWithCredential(authCredential).addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+                return;
+            }
 
-                    //ELSE
-                    callbackContext.error("Specified native auth credential id does not exist");
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            OAuthProvider authProvider = FirebasePlugin.instance.obtainAuthProvider(jsonCredential);
+            if(authProvider != null){
+                FirebasePlugin.instance.authResultCallbackContext = callbackContext;
+                FirebaseAuth.getInstance().startActivityForSignInWithProvider(FirebasePlugin.cordovaActivity, authProvider)
+                        .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnSuccessListener())
+                        .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnFailureListener());
+                return;
             }
-        });
+
+            //ELSE
+            callbackContext.error("Specified native auth credential id does not exist");
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void linkUserWithCredential(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    JSONObject jsonCredential = args.getJSONObject(0);
-                    if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
-                        callbackContext.error("No auth credentials specified");
-                        return;
-                    }
+        try {
+            JSONObject jsonCredential = args.getJSONObject(0);
+            if(!FirebasePlugin.instance.isValidJsonCredential(jsonCredential)){
+                callbackContext.error("No auth credentials specified");
+                return;
+            }
 
-                    AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
-                    if(authCredential != null){
-                        FirebaseAuth.getInstance().getCurrentUser().linkWithCredential(authCredential).addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                        return;
-                    }
+            AuthCredential authCredential = FirebasePlugin.instance.obtainAuthCredential(jsonCredential);
+            if(authCredential != null){
+                FirebaseAuth.getInstance().getCurrentUser().linkWithCredential(authCredential).addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+                return;
+            }
 
-                    //ELSE
-                    callbackContext.error("Specified native auth credential id does not exist");
+            //ELSE
+            callbackContext.error("Specified native auth credential id does not exist");
 
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private boolean isValidJsonCredential(JSONObject jsonCredential) throws JSONException{
@@ -1373,274 +2128,239 @@ public class FirebasePlugin extends CordovaPlugin {
             final CallbackContext callbackContext,
             final JSONArray args
     ) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    mCallbacks = new PhoneAuthProvider.OnVerificationStateChangedCallbacks() {
-                        @Override
-                        public void onVerificationCompleted(PhoneAuthCredential credential) {
-                            // This callback will be invoked in two situations:
-                            // 1 - Instant verification. In some cases the phone number can be instantly
-                            //     verified without needing to send or enter a verification code.
-                            // 2 - Auto-retrieval. On some devices Google Play services can automatically
-                            //     detect the incoming verification SMS and perform verificaiton without
-                            //     user action.
-                            Log.d(TAG, "success: verifyPhoneNumber.onVerificationCompleted");
-
-                            String id = FirebasePlugin.instance.saveAuthCredential((AuthCredential) credential);
-
-                            JSONObject returnResults = new JSONObject();
-                            try {
-                                returnResults.put("instantVerification", true);
-                                returnResults.put("id", id);
-                            } catch(JSONException e){
-                                handleExceptionWithContext(e, callbackContext);
-                                return;
-                            }
-                            sendPluginResultAndKeepCallback(returnResults, callbackContext);
-                        }
+        try {
+            mCallbacks = new PhoneAuthProvider.OnVerificationStateChangedCallbacks() {
+                @Override
+                public void onVerificationCompleted(PhoneAuthCredential credential) {
+                    // This callback will be invoked in two situations:
+                    // 1 - Instant verification. In some cases the phone number can be instantly
+                    //     verified without needing to send or enter a verification code.
+                    // 2 - Auto-retrieval. On some devices Google Play services can automatically
+                    //     detect the incoming verification SMS and perform verificaiton without
+                    //     user action.
+                    FirebasePluginLog.d(TAG, "success: verifyPhoneNumber.onVerificationCompleted");
 
-                        @Override
-                        public void onVerificationFailed(FirebaseException e) {
-                            // This callback is invoked in an invalid request for verification is made,
-                            // for instance if the the phone number format is not valid.
-                            Log.w(TAG, "failed: verifyPhoneNumber.onVerificationFailed ", e);
-
-                            String errorMsg;
-                            if (e instanceof FirebaseAuthInvalidCredentialsException) {
-                                // Invalid request
-                                errorMsg = "Invalid phone number";
-                            } else if (e instanceof FirebaseTooManyRequestsException) {
-                                // The SMS quota for the project has been exceeded
-                                errorMsg = "The SMS quota for the project has been exceeded";
-                            }else{
-                                errorMsg = e.getMessage();
-                            }
-                            callbackContext.error(errorMsg);
-                        }
+                    String id = FirebasePlugin.instance.saveAuthCredential((AuthCredential) credential);
 
-                        @Override
-                        public void onCodeSent(String verificationId, PhoneAuthProvider.ForceResendingToken token) {
-                            // The SMS verification code has been sent to the provided phone number, we
-                            // now need to ask the user to enter the code and then construct a credential
-                            // by combining the code with a verification ID [(in app)].
-                            Log.d(TAG, "success: verifyPhoneNumber.onCodeSent");
+                    JSONObject returnResults = new JSONObject();
+                    try {
+                        returnResults.put("instantVerification", true);
+                        returnResults.put("id", id);
+                    } catch(JSONException e){
+                        handleExceptionWithContext(e, callbackContext);
+                        return;
+                    }
+                    sendPluginResultAndKeepCallback(returnResults, callbackContext);
+                }
 
-                            JSONObject returnResults = new JSONObject();
-                            try {
-                                returnResults.put("verificationId", verificationId);
-                                returnResults.put("instantVerification", false);
-                            } catch (JSONException e) {
-                                handleExceptionWithContext(e, callbackContext);
-                                return;
-                            }
-                            sendPluginResultAndKeepCallback(returnResults, callbackContext);
-                        }
-                    };
+                @Override
+                public void onVerificationFailed(FirebaseException e) {
+                    // This callback is invoked in an invalid request for verification is made,
+                    // for instance if the the phone number format is not valid.
+                    FirebasePluginLog.w(TAG, "failed: verifyPhoneNumber.onVerificationFailed ", e);
+
+                    String errorMsg;
+                    if (e instanceof FirebaseAuthInvalidCredentialsException) {
+                        // Invalid request
+                        errorMsg = "Invalid phone number";
+                    } else if (e instanceof FirebaseTooManyRequestsException) {
+                        // The SMS quota for the project has been exceeded
+                        errorMsg = "The SMS quota for the project has been exceeded";
+                    }else{
+                        errorMsg = e.getMessage();
+                    }
+                    callbackContext.error(errorMsg);
+                }
 
-                    String number = args.getString(0);
-                    int timeOutDuration = args.getInt(1);
-                    String smsCode = args.getString(2);
+                @Override
+                public void onCodeSent(String verificationId, PhoneAuthProvider.ForceResendingToken token) {
+                    // The SMS verification code has been sent to the provided phone number, we
+                    // now need to ask the user to enter the code and then construct a credential
+                    // by combining the code with a verification ID [(in app)].
+                    FirebasePluginLog.d(TAG, "success: verifyPhoneNumber.onCodeSent");
 
-                    if(smsCode != null && smsCode != "null"){
-                        FirebaseAuth.getInstance().getFirebaseAuthSettings().setAutoRetrievedSmsCodeForPhoneNumber(number, smsCode);
+                    JSONObject returnResults = new JSONObject();
+                    try {
+                        returnResults.put("verificationId", verificationId);
+                        returnResults.put("instantVerification", false);
+                    } catch (JSONException e) {
+                        handleExceptionWithContext(e, callbackContext);
+                        return;
                     }
-
-                    PhoneAuthProvider.getInstance().verifyPhoneNumber(number, // Phone number to verify
-                            timeOutDuration, // Timeout duration
-                            TimeUnit.SECONDS, // Unit of timeout
-                            cordovaActivity, // Activity (for callback binding)
-                            mCallbacks); // OnVerificationStateChangedCallbacks
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
+                    sendPluginResultAndKeepCallback(returnResults, callbackContext);
                 }
+            };
+
+            String number = args.getString(0);
+            int timeOutDuration = args.getInt(1);
+            String smsCode = args.getString(2);
+
+            if(smsCode != null && smsCode != "null"){
+                FirebaseAuth.getInstance().getFirebaseAuthSettings().setAutoRetrievedSmsCodeForPhoneNumber(number, smsCode);
             }
-        });
+
+            PhoneAuthProvider.getInstance().verifyPhoneNumber(number, // Phone number to verify
+                    timeOutDuration, // Timeout duration
+                    TimeUnit.SECONDS, // Unit of timeout
+                    cordovaActivity, // Activity (for callback binding)
+                    mCallbacks); // OnVerificationStateChangedCallbacks
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void setLanguageCode(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String lang = args.getString(0);
+        try {
+            String lang = args.getString(0);
 
-                    if(lang == null || lang.equals("")){
-                        callbackContext.error("Lang must be specified");
-                        return;
-                    }
+            if(lang == null || lang.equals("")){
+                callbackContext.error("Lang must be specified");
+                return;
+            }
 
-                    FirebaseAuth.getInstance().setLanguageCode(lang);
+            FirebaseAuth.getInstance().setLanguageCode(lang);
 
-                    Log.d(TAG, "Language code setted to "+lang);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Language code setted to "+lang);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
     
     public void createUserWithEmailAndPassword(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String email = args.getString(0);
-                    String password = args.getString(1);
-
-                    if(email == null || email.equals("")){
-                        callbackContext.error("User email address must be specified");
-                        return;
-                    }
+        try {
+            String email = args.getString(0);
+            String password = args.getString(1);
 
-                    if(password == null || password.equals("")){
-                        callbackContext.error("User password must be specified");
-                        return;
-                    }
+            if(email == null || email.equals("")){
+                callbackContext.error("User email address must be specified");
+                return;
+            }
 
-                    FirebaseAuth.getInstance().createUserWithEmailAndPassword(email, password).addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            if(password == null || password.equals("")){
+                callbackContext.error("User password must be specified");
+                return;
             }
-        });
+
+            FirebaseAuth.getInstance().createUserWithEmailAndPassword(email, password).addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void signInUserWithEmailAndPassword(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String email = args.getString(0);
-                    String password = args.getString(1);
-
-                    if(email == null || email.equals("")){
-                        callbackContext.error("User email address must be specified");
-                        return;
-                    }
+        try {
+            String email = args.getString(0);
+            String password = args.getString(1);
 
-                    if(password == null || password.equals("")){
-                        callbackContext.error("User password must be specified");
-                        return;
-                    }
+            if(email == null || email.equals("")){
+                callbackContext.error("User email address must be specified");
+                return;
+            }
 
-                    FirebaseAuth.getInstance().signInWithEmailAndPassword(email, password).addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            if(password == null || password.equals("")){
+                callbackContext.error("User password must be specified");
+                return;
             }
-        });
+
+            FirebaseAuth.getInstance().signInWithEmailAndPassword(email, password).addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void authenticateUserWithEmailAndPassword(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String email = args.getString(0);
-                    String password = args.getString(1);
+        try {
+            String email = args.getString(0);
+            String password = args.getString(1);
 
-                    if(email == null || email.equals("")){
-                        callbackContext.error("User email address must be specified");
-                        return;
-                    }
+            if(email == null || email.equals("")){
+                callbackContext.error("User email address must be specified");
+                return;
+            }
 
-                    if(password == null || password.equals("")){
-                        callbackContext.error("User password must be specified");
-                        return;
-                    }
+            if(password == null || password.equals("")){
+                callbackContext.error("User password must be specified");
+                return;
+            }
 
-                    AuthCredential authCredential = EmailAuthProvider.getCredential(email, password);
-                    String id = FirebasePlugin.instance.saveAuthCredential(authCredential);
+            AuthCredential authCredential = EmailAuthProvider.getCredential(email, password);
+            String id = FirebasePlugin.instance.saveAuthCredential(authCredential);
 
-                    JSONObject returnResults = new JSONObject();
-                    returnResults.put("instantVerification", true);
-                    returnResults.put("id", id);
-                    callbackContext.success(returnResults);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+            JSONObject returnResults = new JSONObject();
+            returnResults.put("instantVerification", true);
+            returnResults.put("id", id);
+            callbackContext.success(returnResults);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
 
     public void authenticateUserWithGoogle(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String clientId = args.getString(0);
+        try {
+            String clientId = args.getString(0);
 
-                    GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
-                            .requestIdToken(clientId)
-                            .requestEmail()
-                            .build();
+            GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
+                    .requestIdToken(clientId)
+                    .requestEmail()
+                    .build();
 
-                    GoogleSignInClient mGoogleSignInClient = GoogleSignIn.getClient(FirebasePlugin.instance.cordovaActivity, gso);
-                    Intent signInIntent = mGoogleSignInClient.getSignInIntent();
-                    FirebasePlugin.activityResultCallbackContext = callbackContext;
-                    FirebasePlugin.instance.cordovaInterface.startActivityForResult(FirebasePlugin.instance, signInIntent, GOOGLE_SIGN_IN);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+            GoogleSignInClient mGoogleSignInClient = GoogleSignIn.getClient(FirebasePlugin.instance.cordovaActivity, gso);
+            Intent signInIntent = mGoogleSignInClient.getSignInIntent();
+            FirebasePlugin.activityResultCallbackContext = callbackContext;
+            FirebasePlugin.instance.cordovaInterface.startActivityForResult(FirebasePlugin.instance, signInIntent, GOOGLE_SIGN_IN);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void authenticateUserWithApple(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String locale = args.getString(0);
-                    OAuthProvider.Builder provider = OAuthProvider.newBuilder("apple.com");
-                    if(locale != null){
-                        provider.addCustomParameter("locale", locale);
-                    }
-                    Task<AuthResult> pending = FirebaseAuth.getInstance().getPendingAuthResult();
-                    if (pending != null) {
-                        callbackContext.error("Auth result is already pending");
-                        pending
-                                .addOnSuccessListener(new AuthResultOnSuccessListener())
-                                .addOnFailureListener(new AuthResultOnFailureListener());
-                    } else {
-                        String id = FirebasePlugin.instance.saveAuthProvider(provider.build());;
-                        JSONObject returnResults = new JSONObject();
-                        returnResults.put("instantVerification", true);
-                        returnResults.put("id", id);
-                        callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, returnResults));
-                    }
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+        try {
+            String locale = args.getString(0);
+            OAuthProvider.Builder provider = OAuthProvider.newBuilder("apple.com");
+            if(locale != null){
+                provider.addCustomParameter("locale", locale);
+            }
+            Task<AuthResult> pending = FirebaseAuth.getInstance().getPendingAuthResult();
+            if (pending != null) {
+                callbackContext.error("Auth result is already pending");
+                pending
+                        .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnSuccessListener())
+                        .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnFailureListener());
+            } else {
+                String id = FirebasePlugin.instance.saveAuthProvider(provider.build());;
+                JSONObject returnResults = new JSONObject();
+                returnResults.put("instantVerification", true);
+                returnResults.put("id", id);
+                callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, returnResults));
             }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void signInUserWithCustomToken(final CallbackContext callbackContext, final JSONArray args){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String customToken = args.getString(0);
-
-                    if(customToken == null || customToken.equals("")){
-                        callbackContext.error("Custom token must be specified");
-                        return;
-                    }
+        try {
+            String customToken = args.getString(0);
 
-                    FirebaseAuth.getInstance().signInWithCustomToken(customToken).addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            if(customToken == null || customToken.equals("")){
+                callbackContext.error("Custom token must be specified");
+                return;
             }
-        });
+
+            FirebaseAuth.getInstance().signInWithCustomToken(customToken).addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void signInUserAnonymously(final CallbackContext callbackContext){
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebaseAuth.getInstance().signInAnonymously().addOnCompleteListener(cordova.getActivity(), new AuthResultOnCompleteListener(callbackContext));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            FirebaseAuth.getInstance().signInAnonymously().addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new AuthResultOnCompleteListener(callbackContext));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     //
@@ -1649,165 +2369,126 @@ public class FirebasePlugin extends CordovaPlugin {
 
     private HashMap<String, Trace> traces = new HashMap<String, Trace>();
 
-    private void startTrace(final CallbackContext callbackContext, final String name) {
-        final FirebasePlugin self = this;
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-
-                    Trace myTrace = null;
-                    if (self.traces.containsKey(name)) {
-                        myTrace = self.traces.get(name);
-                    }
+    private void startTrace(final CallbackContext callbackContext, final String name) {
+        try {
 
-                    if (myTrace == null) {
-                        myTrace = FirebasePerformance.getInstance().newTrace(name);
-                        myTrace.start();
-                        self.traces.put(name, myTrace);
-                    }
+            Trace myTrace = null;
+            if (this.traces.containsKey(name)) {
+                myTrace = this.traces.get(name);
+            }
 
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
+            if (myTrace == null) {
+                myTrace = FirebasePerformance.getInstance().newTrace(name);
+                myTrace.start();
+                this.traces.put(name, myTrace);
             }
-        });
+
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void incrementCounter(final CallbackContext callbackContext, final String name, final String counterNamed) {
-        final FirebasePlugin self = this;
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
+        try {
 
-                    Trace myTrace = null;
-                    if (self.traces.containsKey(name)) {
-                        myTrace = self.traces.get(name);
-                    }
+            Trace myTrace = null;
+            if (this.traces.containsKey(name)) {
+                myTrace = this.traces.get(name);
+            }
 
-                    if (myTrace != null && myTrace instanceof Trace) {
-                        myTrace.incrementMetric(counterNamed, 1);
-                        callbackContext.success();
-                    } else {
-                        callbackContext.error("Trace not found");
-                    }
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
+            if (myTrace != null && myTrace instanceof Trace) {
+                myTrace.incrementMetric(counterNamed, 1);
+                callbackContext.success();
+            } else {
+                callbackContext.error("Trace not found");
             }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void stopTrace(final CallbackContext callbackContext, final String name) {
-        final FirebasePlugin self = this;
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
+        try {
 
-                    Trace myTrace = null;
-                    if (self.traces.containsKey(name)) {
-                        myTrace = self.traces.get(name);
-                    }
+            Trace myTrace = null;
+            if (this.traces.containsKey(name)) {
+                myTrace = this.traces.get(name);
+            }
 
-                    if (myTrace != null && myTrace instanceof Trace) { //
-                        myTrace.stop();
-                        self.traces.remove(name);
-                        callbackContext.success();
-                    } else {
-                        callbackContext.error("Trace not found");
-                    }
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
+            if (myTrace != null && myTrace instanceof Trace) { //
+                myTrace.stop();
+                this.traces.remove(name);
+                callbackContext.success();
+            } else {
+                callbackContext.error("Trace not found");
             }
-        });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void setAnalyticsCollectionEnabled(final CallbackContext callbackContext, final boolean enabled) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    mFirebaseAnalytics.setAnalyticsCollectionEnabled(enabled);
-                    setPreference(ANALYTICS_COLLECTION_ENABLED, enabled);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            mFirebaseAnalytics.setAnalyticsCollectionEnabled(enabled);
+            setPreference(ANALYTICS_COLLECTION_ENABLED, enabled);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void isAnalyticsCollectionEnabled(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    callbackContext.success(conformBooleanForPluginResult(getPreference(ANALYTICS_COLLECTION_ENABLED)));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            callbackContext.success(conformBooleanForPluginResult(getPreference(ANALYTICS_COLLECTION_ENABLED)));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void setPerformanceCollectionEnabled(final CallbackContext callbackContext, final boolean enabled) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    FirebasePerformance.getInstance().setPerformanceCollectionEnabled(enabled);
-                    setPreference(PERFORMANCE_COLLECTION_ENABLED, enabled);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            FirebasePerformance.getInstance().setPerformanceCollectionEnabled(enabled);
+            setPreference(PERFORMANCE_COLLECTION_ENABLED, enabled);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void isPerformanceCollectionEnabled(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    callbackContext.success(conformBooleanForPluginResult(getPreference(PERFORMANCE_COLLECTION_ENABLED)));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            callbackContext.success(conformBooleanForPluginResult(getPreference(PERFORMANCE_COLLECTION_ENABLED)));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void setCrashlyticsCollectionEnabled(final CallbackContext callbackContext, final boolean enabled) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    firebaseCrashlytics.setCrashlyticsCollectionEnabled(enabled);
-                    setPreference(CRASHLYTICS_COLLECTION_ENABLED, enabled);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            firebaseCrashlytics.setCrashlyticsCollectionEnabled(enabled);
+            setPreference(CRASHLYTICS_COLLECTION_ENABLED, enabled);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private void isCrashlyticsCollectionEnabled(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    callbackContext.success(conformBooleanForPluginResult(isCrashlyticsEnabled()));
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                    e.printStackTrace();
-                }
-            }
-        });
+        try {
+            callbackContext.success(conformBooleanForPluginResult(isCrashlyticsEnabled()));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+            e.printStackTrace();
+        }
     }
 
     private boolean isCrashlyticsEnabled(){
@@ -1815,30 +2496,23 @@ public class FirebasePlugin extends CordovaPlugin {
     }
 
     public void clearAllNotifications(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
-                    nm.cancelAll();
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
+            nm.cancelAll();
+            FirebasePluginNotificationGroups.clear();
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void createChannel(final CallbackContext callbackContext, final JSONObject options) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    createChannel(options);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            createChannel(options);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     protected static NotificationChannel createChannel(final JSONObject options) throws JSONException {
@@ -1846,91 +2520,164 @@ public class FirebasePlugin extends CordovaPlugin {
         // only call on Android O and above
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             String id = options.getString("id");
-            Log.i(TAG, "Creating channel id="+id);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.INFO)) FirebasePluginLog.i(TAG, "Creating channel id="+id);
 
             if(channelExists(id)){
                 deleteChannel(id);
             }
 
             NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
-            String packageName = cordovaActivity.getPackageName();
-
-            String name = options.optString("name", "");
-            Log.d(TAG, "Channel "+id+" - name="+name);
-
-            int importance = options.optInt("importance", NotificationManager.IMPORTANCE_HIGH);
-            Log.d(TAG, "Channel "+id+" - importance="+importance);
-
-            channel = new NotificationChannel(id,
-                    name,
-                    importance);
-
-            // Description
-            String description = options.optString("description", "");
-            Log.d(TAG, "Channel "+id+" - description="+description);
-            channel.setDescription(description);
-
-            // Light
-            boolean light = options.optBoolean("light", true);
-            Log.d(TAG, "Channel "+id+" - light="+light);
-            channel.enableLights(light);
-
-            int lightColor = options.optInt("lightColor", -1);
-            if (lightColor != -1) {
-                Log.d(TAG, "Channel "+id+" - lightColor="+lightColor);
-                channel.setLightColor(lightColor);
-            }
-
-            // Visibility
-            int visibility = options.optInt("visibility", NotificationCompat.VISIBILITY_PUBLIC);
-            Log.d(TAG, "Channel "+id+" - visibility="+visibility);
-            channel.setLockscreenVisibility(visibility);
-
-            // Badge
-            boolean badge = options.optBoolean("badge", true);
-            Log.d(TAG, "Channel "+id+" - badge="+badge);
-            channel.setShowBadge(badge);
-
-            // Sound
-            String sound = options.optString("sound", "default");
-            AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                    .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE).build();
-            if ("ringtone".equals(sound)) {
-                channel.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE), audioAttributes);
-                Log.d(TAG, "Channel "+id+" - sound=ringtone");
-            } else if (sound != null && !sound.contentEquals("default")) {
-                Uri soundUri = Uri.parse(ContentResolver.SCHEME_ANDROID_RESOURCE + "://" + packageName + "/raw/" + sound);
-                channel.setSound(soundUri, audioAttributes);
-                Log.d(TAG, "Channel "+id+" - sound="+sound);
-            } else if (sound != "false"){
-                channel.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION), audioAttributes);
-                Log.d(TAG, "Channel "+id+" - sound=default");
-            }else{
-                Log.d(TAG, "Channel "+id+" - sound=none");
+            channel = buildChannel(options);
+
+            // Create channel
+            nm.createNotificationChannel(channel);
+            synchronized (channelIndex) {
+                channelIndex.add(id);
             }
+        }
+        return channel;
+    }
+
+    /**
+     * Builds a channel from its JSON definition, without creating it. Only call on Android O and above.
+     */
+    private static NotificationChannel buildChannel(final JSONObject options) throws JSONException {
+        String id = options.getString("id");
+        String name = options.optString("name", "");
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - name="+name);
+
+        int importance = options.optInt("importance", NotificationManager.IMPORTANCE_HIGH);
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - importance="+importance);
+
+        NotificationChannel channel = new NotificationChannel(id,
+                name,
+                importance);
+
+        // Description
+        String description = options.optString("description", "");
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - description="+description);
+        channel.setDescription(description);
+
+        // Light
+        boolean light = options.optBoolean("light", true);
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - light="+light);
+        channel.enableLights(light);
+
+        int lightColor = options.optInt("lightColor", -1);
+        if (lightColor != -1) {
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - lightColor="+lightColor);
+            channel.setLightColor(lightColor);
+        }
+
+        // Visibility
+        int visibility = options.optInt("visibility", NotificationCompat.VISIBILITY_PUBLIC);
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - visibility="+visibility);
+        channel.setLockscreenVisibility(visibility);
+
+        // Badge
+        boolean badge = options.optBoolean("badge", true);
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - badge="+badge);
+        channel.setShowBadge(badge);
+
+        // Sound
+        String sound = options.optString("sound", "default");
+        AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .setUsage(AudioAttributes.USAGE_NOTIFICATION_RINGTONE).build();
+        if ("ringtone".equals(sound)) {
+            channel.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_RINGTONE), audioAttributes);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - sound=ringtone");
+        } else if (sound != null && !sound.contentEquals("default")) {
+            Uri soundUri = FirebasePluginResources.getSoundUri(applicationContext, sound);
+            channel.setSound(soundUri, audioAttributes);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - sound="+sound);
+        } else if (sound != "false"){
+            channel.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION), audioAttributes);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - sound=default");
+        }else{
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - sound=none");
+        }
+
+        // Vibration: if vibration setting is an array set vibration pattern, else set enable vibration.
+        JSONArray pattern = options.optJSONArray("vibration");
+        if (pattern != null) {
+            int patternLength = pattern.length();
+            long[] patternArray = new long[patternLength];
+            for (int i = 0; i < patternLength; i++) {
+                patternArray[i] = pattern.optLong(i);
+            }
+            channel.enableVibration(true);
+            channel.setVibrationPattern(patternArray);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - vibrate="+pattern);
+        } else {
+            boolean vibrate = options.optBoolean("vibration", true);
+            channel.enableVibration(vibrate);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel "+id+" - vibrate="+vibrate);
+        }
+        return channel;
+    }
+
+    public void createChannels(final CallbackContext callbackContext, final JSONArray definitions) {
+        try {
+            callbackContext.success(createChannels(definitions));
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
+    }
 
-            // Vibration: if vibration setting is an array set vibration pattern, else set enable vibration.
-            JSONArray pattern = options.optJSONArray("vibration");
-            if (pattern != null) {
-                int patternLength = pattern.length();
-                long[] patternArray = new long[patternLength];
-                for (int i = 0; i < patternLength; i++) {
-                    patternArray[i] = pattern.optLong(i);
+    /**
+     * Creates the given channels, skipping any which already exist with the same name and description.
+     * Only the name and description of an existing channel can be updated: Android keeps its other settings (importance, sound, etc.),
+     * which the user may also have changed, and restores them if a channel is deleted and recreated with the same ID.
+     * So existing channels are updated in place rather than deleted, and differences in their other settings are ignored.
+     * The existing channels are read once and all new or changed channels are created in a single call.
+     *
+     * @return the IDs of the channels which were created, updated and unchanged
+     */
+    protected static JSONObject createChannels(final JSONArray definitions) throws JSONException {
+        JSONArray created = new JSONArray();
+        JSONArray updated = new JSONArray();
+        JSONArray unchanged = new JSONArray();
+        // only call on Android O and above
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            Map<String, NotificationChannel> existing = new HashMap<String, NotificationChannel>();
+            for (NotificationChannel channel : listChannels()) {
+                existing.put(channel.getId(), channel);
+            }
+
+            List<NotificationChannel> channels = new ArrayList<NotificationChannel>();
+            for (int i = 0; i < definitions.length(); i++) {
+                NotificationChannel channel = buildChannel(definitions.getJSONObject(i));
+                String id = channel.getId();
+                NotificationChannel current = existing.get(id);
+                if (current == null) {
+                    created.put(id);
+                } else if (TextUtils.equals(current.getName(), channel.getName())
+                        && TextUtils.equals(current.getDescription(), channel.getDescription())) {
+                    unchanged.put(id);
+                    continue;
+                } else {
+                    updated.put(id);
                 }
-                channel.enableVibration(true);
-                channel.setVibrationPattern(patternArray);
-                Log.d(TAG, "Channel "+id+" - vibrate="+pattern);
-            } else {
-                boolean vibrate = options.optBoolean("vibration", true);
-                channel.enableVibration(vibrate);
-                Log.d(TAG, "Channel "+id+" - vibrate="+vibrate);
+                channels.add(channel);
             }
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.INFO)) FirebasePluginLog.i(TAG, "Creating channels: created="+created+"; updated="+updated+"; unchanged="+unchanged.length());
 
-            // Create channel
-            nm.createNotificationChannel(channel);
+            if (!channels.isEmpty()) {
+                NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
+                nm.createNotificationChannels(channels);
+                synchronized (channelIndex) {
+                    for (NotificationChannel channel : channels) {
+                        channelIndex.add(channel.getId());
+                    }
+                }
+            }
         }
-        return channel;
+        JSONObject result = new JSONObject();
+        result.put("created", created);
+        result.put("updated", updated);
+        result.put("unchanged", unchanged);
+        return result;
     }
 
     protected static void createDefaultChannel() throws JSONException {
@@ -1945,40 +2692,32 @@ public class FirebasePlugin extends CordovaPlugin {
     }
 
     public void setDefaultChannel(final CallbackContext callbackContext, final JSONObject options) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    deleteChannel(defaultChannelId);
+        try {
+            deleteChannel(defaultChannelId);
 
-                    String id = options.optString("id", null);
-                    if(id != null){
-                        defaultChannelId = id;
-                    }
+            String id = options.optString("id", null);
+            if(id != null){
+                defaultChannelId = id;
+            }
 
-                    String name = options.optString("name", null);
-                    if(name != null){
-                        defaultChannelName = name;
-                    }
-                    createDefaultChannel(options);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
+            String name = options.optString("name", null);
+            if(name != null){
+                defaultChannelName = name;
             }
-        });
+            createDefaultChannel(options);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public void deleteChannel(final CallbackContext callbackContext, final String channelID) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    deleteChannel(channelID);
-                    callbackContext.success();
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            deleteChannel(channelID);
+            callbackContext.success();
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     protected static void deleteChannel(final String channelID){
@@ -1986,29 +2725,28 @@ public class FirebasePlugin extends CordovaPlugin {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
             nm.deleteNotificationChannel(channelID);
+            synchronized (channelIndex) {
+                channelIndex.remove(channelID);
+            }
         }
     }
 
     public void listChannels(final CallbackContext callbackContext) {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    List<NotificationChannel> notificationChannels = listChannels();
-                    JSONArray channels = new JSONArray();
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                        for (NotificationChannel notificationChannel : notificationChannels) {
-                            JSONObject channel = new JSONObject();
-                            channel.put("id", notificationChannel.getId());
-                            channel.put("name", notificationChannel.getName());
-                            channels.put(channel);
-                        }
-                    }
-                    callbackContext.success(channels);
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
+        try {
+            List<NotificationChannel> notificationChannels = listChannels();
+            JSONArray channels = new JSONArray();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                for (NotificationChannel notificationChannel : notificationChannels) {
+                    JSONObject channel = new JSONObject();
+                    channel.put("id", notificationChannel.getId());
+                    channel.put("name", notificationChannel.getName());
+                    channels.put(channel);
                 }
             }
-        });
+            callbackContext.success(channels);
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     public static List<NotificationChannel> listChannels(){
@@ -2017,20 +2755,31 @@ public class FirebasePlugin extends CordovaPlugin {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationManager nm = (NotificationManager) applicationContext.getSystemService(Context.NOTIFICATION_SERVICE);
             notificationChannels = nm.getNotificationChannels();
+
+            // Since we have the full list, use it to refresh the index
+            synchronized (channelIndex) {
+                channelIndex.clear();
+                for (NotificationChannel notificationChannel : notificationChannels) {
+                    channelIndex.add(notificationChannel.getId());
+                }
+                channelIndexPopulated = true;
+            }
         }
         return notificationChannels;
     }
 
+    /**
+     * Checks the channel index rather than querying the NotificationManager, so is cheap enough to call for every notification.
+     * The index is populated from the NotificationManager on first use then kept up-to-date as the plugin creates and deletes channels.
+     */
     public static boolean channelExists(String channelId){
         boolean exists = false;
         if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
-            List<NotificationChannel> notificationChannels = FirebasePlugin.listChannels();
-            if(notificationChannels != null){
-                for (NotificationChannel notificationChannel : notificationChannels) {
-                    if(notificationChannel.getId().equals(channelId)){
-                        exists = true;
-                    }
+            synchronized (channelIndex) {
+                if(!channelIndexPopulated){
+                    FirebasePlugin.listChannels();
                 }
+                exists = channelIndex.contains(channelId);
             }
         }
         return exists;
@@ -2040,369 +2789,337 @@ public class FirebasePlugin extends CordovaPlugin {
     // Firestore
     //
     private void addDocumentToFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String jsonDoc = args.getString(0);
-                    String collection = args.getString(1);
-
-                    firestore.collection(collection)
-                            .add(jsonStringToMap(jsonDoc))
-                            .addOnSuccessListener(new OnSuccessListener<DocumentReference>() {
-                                @Override
-                                public void onSuccess(DocumentReference documentReference) {
-                                    callbackContext.success(documentReference.getId());
-                                }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
-    }
+        try {
+            String jsonDoc = args.getString(0);
+            String collection = args.getString(1);
 
-    private void setDocumentInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String jsonDoc = args.getString(1);
-                    String collection = args.getString(2);
-
-                    firestore.collection(collection).document(documentId)
-                            .set(jsonStringToMap(jsonDoc))
-                            .addOnSuccessListener(new OnSuccessListener<Void>() {
-                                @Override
-                                public void onSuccess(Void aVoid) {
-                                    callbackContext.success();
-                                }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+            firestore.collection(collection)
+                    .add(jsonStringToMap(jsonDoc))
+                    .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnSuccessListener<DocumentReference>() {
+                        @Override
+                        public void onSuccess(DocumentReference documentReference) {
+                            callbackContext.success(documentReference.getId());
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
+    }
+
+    private void setDocumentInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        try {
+            String documentId = args.getString(0);
+            String jsonDoc = args.getString(1);
+            String collection = args.getString(2);
+
+            firestore.collection(collection).document(documentId)
+                    .set(jsonStringToMap(jsonDoc))
+                    .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnSuccessListener<Void>() {
+                        @Override
+                        public void onSuccess(Void aVoid) {
+                            callbackContext.success();
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void updateDocumentInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String jsonDoc = args.getString(1);
-                    String collection = args.getString(2);
-
-                    firestore.collection(collection).document(documentId)
-                            .update(jsonStringToMap(jsonDoc))
-                            .addOnSuccessListener(new OnSuccessListener<Void>() {
-                                @Override
-                                public void onSuccess(Void aVoid) {
-                                    callbackContext.success();
-                                }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            String documentId = args.getString(0);
+            String jsonDoc = args.getString(1);
+            String collection = args.getString(2);
+
+            firestore.collection(collection).document(documentId)
+                    .update(jsonStringToMap(jsonDoc))
+                    .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnSuccessListener<Void>() {
+                        @Override
+                        public void onSuccess(Void aVoid) {
+                            callbackContext.success();
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void deleteDocumentFromFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String collection = args.getString(1);
-
-                    firestore.collection(collection).document(documentId)
-                            .delete()
-                            .addOnSuccessListener(new OnSuccessListener<Void>() {
-                                @Override
-                                public void onSuccess(Void aVoid) {
-                                    callbackContext.success();
-                                }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+        try {
+            String documentId = args.getString(0);
+            String collection = args.getString(1);
+
+            firestore.collection(collection).document(documentId)
+                    .delete()
+                    .addOnSuccessListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnSuccessListener<Void>() {
+                        @Override
+                        public void onSuccess(Void aVoid) {
+                            callbackContext.success();
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void documentExistsInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String collection = args.getString(1);
-
-                    firestore.collection(collection).document(documentId)
-                            .get()
-                            .addOnCompleteListener(new OnCompleteListener<DocumentSnapshot>() {
-                                @Override
-                                public void onComplete(@NonNull Task<DocumentSnapshot> task) {
-                                    try {
-                                        if (task.isSuccessful()) {
-                                            DocumentSnapshot document = task.getResult();
-                                            callbackContext.success(conformBooleanForPluginResult(document != null && document.getData() != null));
-                                        } else {
-                                            Exception e = task.getException();
-                                            if(e != null){
-                                                handleExceptionWithContext(e, callbackContext);
-                                            }
-                                        }
-                                    } catch (Exception e) {
+        try {
+            String documentId = args.getString(0);
+            String collection = args.getString(1);
+
+            firestore.collection(collection).document(documentId)
+                    .get()
+                    .addOnCompleteListener(FirebasePluginExecutors.getContinuationExecutor(), new OnCompleteListener<DocumentSnapshot>() {
+                        @Override
+                        public void onComplete(@NonNull Task<DocumentSnapshot> task) {
+                            try {
+                                if (task.isSuccessful()) {
+                                    DocumentSnapshot document = task.getResult();
+                                    callbackContext.success(conformBooleanForPluginResult(document != null && document.getData() != null));
+                                } else {
+                                    Exception e = task.getException();
+                                    if(e != null){
                                         handleExceptionWithContext(e, callbackContext);
                                     }
                                 }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+                            } catch (Exception e) {
+                                handleExceptionWithContext(e, callbackContext);
+                            }
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void fetchDocumentInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String collection = args.getString(1);
-
-                    firestore.collection(collection).document(documentId)
-                            .get()
-                            .addOnCompleteListener(new OnCompleteListener<DocumentSnapshot>() {
-                                @Override
-                                public void onComplete(@NonNull Task<DocumentSnapshot> task) {
-                                    try {
-                                        if (task.isSuccessful()) {
-                                            DocumentSnapshot document = task.getResult();
-                                            if (document != null && document.getData() != null) {
-                                                JSONObject jsonDoc = mapToJsonObject(document.getData());
-                                                callbackContext.success(jsonDoc);
-                                            } else {
-                                                callbackContext.error("No document found in collection");
-                                            }
-                                        } else {
-                                            Exception e = task.getException();
-                                            if(e != null){
-                                                handleExceptionWithContext(e, callbackContext);
-                                            }
-                                        }
-                                    } catch (Exception e) {
+        try {
+            String documentId = args.getString(0);
+            String collection = args.getString(1);
+
+            firestore.collection(collection).document(documentId)
+                    .get()
+                    .addOnCompleteListener(FirebasePluginExecutors.getContinuationExecutor(), new OnCompleteListener<DocumentSnapshot>() {
+                        @Override
+                        public void onComplete(@NonNull Task<DocumentSnapshot> task) {
+                            try {
+                                if (isCancelled(callbackContext)) return;
+                                if (task.isSuccessful()) {
+                                    DocumentSnapshot document = task.getResult();
+                                    if (document != null && document.getData() != null) {
+                                        JSONObject jsonDoc = mapToJsonObject(document.getData());
+                                        callbackContext.success(jsonDoc);
+                                    } else {
+                                        callbackContext.error("No document found in collection");
+                                    }
+                                } else {
+                                    Exception e = task.getException();
+                                    if(e != null){
                                         handleExceptionWithContext(e, callbackContext);
                                     }
                                 }
-                            })
-                            .addOnFailureListener(new OnFailureListener() {
-                                @Override
-                                public void onFailure(@NonNull Exception e) {
-                                    handleExceptionWithContext(e, callbackContext);
-                                }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+                            } catch (Exception e) {
+                                handleExceptionWithContext(e, callbackContext);
+                            }
+                        }
+                    })
+                    .addOnFailureListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnFailureListener() {
+                        @Override
+                        public void onFailure(@NonNull Exception e) {
+                            handleExceptionWithContext(e, callbackContext);
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void listenToDocumentInFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String documentId = args.getString(0);
-                    String collection = args.getString(1);
-                    boolean includeMetadata = args.getBoolean(2);
+        try {
+            String documentId = args.getString(0);
+            String collection = args.getString(1);
+            boolean includeMetadata = args.getBoolean(2);
+            final String id = generateId();
 
-                    ListenerRegistration registration = firestore.collection(collection).document(documentId)
-                            .addSnapshotListener(includeMetadata ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE, new EventListener<DocumentSnapshot>() {
-                        @Override
-                        public void onEvent(@Nullable DocumentSnapshot snapshot,
-                                            @Nullable FirebaseFirestoreException e3) {
-                            try {
-                                if (e3 == null) {
-                                    JSONObject document = new JSONObject();
-                                    document.put("eventType", "change");
+            ListenerRegistration registration = firestore.collection(collection).document(documentId)
+                    .addSnapshotListener(FirebasePluginExecutors.newSerialContinuationExecutor(), includeMetadata ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE, new EventListener<DocumentSnapshot>() {
+                @Override
+                public void onEvent(@Nullable DocumentSnapshot snapshot,
+                                    @Nullable FirebaseFirestoreException e3) {
+                    try {
+                        if (e3 == null) {
+                            JSONObject document = new JSONObject();
+                            document.put("eventType", "change");
 
-                                    String source = snapshot != null && snapshot.getMetadata().hasPendingWrites() ? "local" : "remote";
-                                    document.put("source", source);
+                            String source = snapshot != null && snapshot.getMetadata().hasPendingWrites() ? "local" : "remote";
+                            document.put("source", source);
 
-                                    document.put("fromCache", snapshot.getMetadata().isFromCache());
+                            document.put("fromCache", snapshot.getMetadata().isFromCache());
 
-                                    if (snapshot != null && snapshot.exists()) {
-                                        JSONObject jsonDoc = mapToJsonObject(snapshot.getData());
-                                        document.put("snapshot", jsonDoc);
-                                    }
-                                    sendPluginResultAndKeepCallback(document, callbackContext);
-                                }else{
-                                    handleExceptionWithContext(e3, callbackContext);
-                                }
-                            } catch (Exception e2) {
-                                handleExceptionWithContext(e2, callbackContext);
+                            if (snapshot != null && snapshot.exists()) {
+                                JSONObject jsonDoc = mapToJsonObject(snapshot.getData());
+                                document.put("snapshot", jsonDoc);
                             }
+                            FirebasePluginEventChannel.postLatest(FirebasePluginEventChannel.FIRESTORE_LISTENER, id, document);
+                        }else{
+                            sendFirestoreListenerError(id, e3);
                         }
-                    });
-
-                    String id = saveFirestoreListener(registration);
-                    JSONObject jsResult = new JSONObject();
-                    jsResult.put("eventType", "id");
-                    jsResult.put("id", id);
-                    sendPluginResultAndKeepCallback(jsResult, callbackContext);
-                } catch (Exception e1) {
-                    handleExceptionWithContext(e1, callbackContext);
+                    } catch (Exception e2) {
+                        sendFirestoreListenerError(id, e2);
+                    }
                 }
-            }
-        });
+            });
+
+            firestoreListeners.put(id, registration);
+            JSONObject jsResult = new JSONObject();
+            jsResult.put("eventType", "id");
+            jsResult.put("id", id);
+            callbackContext.success(jsResult);
+        } catch (Exception e1) {
+            handleExceptionWithContext(e1, callbackContext);
+        }
     }
 
     private void fetchFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String collection = args.getString(0);
-                    JSONArray filters = args.getJSONArray(1);
-                    Query query = firestore.collection(collection);
+        try {
+            String collection = args.getString(0);
+            JSONArray filters = args.getJSONArray(1);
+            Query query = firestore.collection(collection);
 
-                    if(filters != null){
-                        query = applyFiltersToFirestoreCollectionQuery(filters, query);
-                    }
+            if(filters != null){
+                query = applyFiltersToFirestoreCollectionQuery(filters, query);
+            }
 
-                    query.get()
-                            .addOnCompleteListener(new OnCompleteListener<QuerySnapshot>() {
-                                @Override
-                                public void onComplete(@NonNull Task<QuerySnapshot> task) {
-                                    try {
-                                        if (task.isSuccessful()) {
-                                            JSONObject jsonDocs = new JSONObject();
-                                            for (QueryDocumentSnapshot document : task.getResult()) {
-                                                jsonDocs.put(document.getId(), mapToJsonObject(document.getData()));
-                                            }
-                                            callbackContext.success(jsonDocs);
-                                        } else {
-                                            handleExceptionWithContext(task.getException(), callbackContext);
-                                        }
-                                    } catch (Exception e) {
-                                        handleExceptionWithContext(e, callbackContext);
+            query.get()
+                    .addOnCompleteListener(FirebasePluginExecutors.getContinuationExecutor(), new OnCompleteListener<QuerySnapshot>() {
+                        @Override
+                        public void onComplete(@NonNull Task<QuerySnapshot> task) {
+                            try {
+                                if (isCancelled(callbackContext)) return;
+                                if (task.isSuccessful()) {
+                                    JSONObject jsonDocs = new JSONObject();
+                                    for (QueryDocumentSnapshot document : task.getResult()) {
+                                        jsonDocs.put(document.getId(), mapToJsonObject(document.getData()));
                                     }
+                                    callbackContext.success(jsonDocs);
+                                } else {
+                                    handleExceptionWithContext(task.getException(), callbackContext);
                                 }
-                            });
-                } catch (Exception e) {
-                    handleExceptionWithContext(e, callbackContext);
-                }
-            }
-        });
+                            } catch (Exception e) {
+                                handleExceptionWithContext(e, callbackContext);
+                            }
+                        }
+                    });
+        } catch (Exception e) {
+            handleExceptionWithContext(e, callbackContext);
+        }
     }
 
     private void listenToFirestoreCollection(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String collection = args.getString(0);
-                    JSONArray filters = null;
-                    if(!args.isNull(1)){
-                        filters = args.getJSONArray(1);
-                    }
-                    boolean includeMetadata = args.getBoolean(2);
+        try {
+            String collection = args.getString(0);
+            JSONArray filters = null;
+            if(!args.isNull(1)){
+                filters = args.getJSONArray(1);
+            }
+            boolean includeMetadata = args.getBoolean(2);
 
-                    Query query = firestore.collection(collection);
+            Query query = firestore.collection(collection);
 
-                    if(filters != null){
-                        query = applyFiltersToFirestoreCollectionQuery(filters, query);
-                    }
+            if(filters != null){
+                query = applyFiltersToFirestoreCollectionQuery(filters, query);
+            }
+            final String id = generateId();
 
-                    ListenerRegistration registration = query
-                            .addSnapshotListener(includeMetadata ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE, new EventListener<QuerySnapshot>() {
-                                @Override
-                                public void onEvent(@Nullable QuerySnapshot snapshots,
-                                                    @Nullable FirebaseFirestoreException e3) {
-                                    try {
-                                        if (e3 == null) {
-                                            JSONObject jsResult = new JSONObject();
-                                            jsResult.put("eventType", "change");
-
-                                            JSONObject documents = new JSONObject();
-                                            boolean hasDocuments = false;
-                                            for (DocumentChange dc : snapshots.getDocumentChanges()) {
-                                                hasDocuments = true;
-                                                JSONObject document = new JSONObject();
-
-                                                switch (dc.getType()) {
-                                                    case ADDED:
-                                                        document.put("type", "new");
-                                                        break;
-                                                    case MODIFIED:
-                                                        document.put("type", "modified");
-                                                        break;
-                                                    case REMOVED:
-                                                        document.put("type", "removed");
-                                                        break;
-                                                    default:
-                                                        document.put("type", "metadata");
-                                                }
-
-                                                QueryDocumentSnapshot documentSnapshot = dc.getDocument();
-                                                document.put("snapshot", mapToJsonObject(documentSnapshot.getData()));
-                                                document.put("source", documentSnapshot.getMetadata().hasPendingWrites() ? "local" : "remote");
-                                                document.put("fromCache", documentSnapshot.getMetadata().isFromCache());
-
-                                                documents.put(documentSnapshot.getId(), document);
-                                            }
-                                            if(hasDocuments){
-                                                jsResult.put("documents", documents);
-                                            }
-                                            sendPluginResultAndKeepCallback(jsResult, callbackContext);
-                                        }else{
-                                            handleExceptionWithContext(e3, callbackContext);
+            ListenerRegistration registration = query
+                    .addSnapshotListener(FirebasePluginExecutors.newSerialContinuationExecutor(), includeMetadata ? MetadataChanges.INCLUDE : MetadataChanges.EXCLUDE, new EventListener<QuerySnapshot>() {
+                        @Override
+                        public void onEvent(@Nullable QuerySnapshot snapshots,
+                                            @Nullable FirebaseFirestoreException e3) {
+                            try {
+                                if (e3 == null) {
+                                    JSONObject jsResult = new JSONObject();
+                                    jsResult.put("eventType", "change");
+
+                                    JSONObject documents = new JSONObject();
+                                    boolean hasDocuments = false;
+                                    for (DocumentChange dc : snapshots.getDocumentChanges()) {
+                                        hasDocuments = true;
+                                        JSONObject document = new JSONObject();
+
+                                        switch (dc.getType()) {
+                                            case ADDED:
+                                                document.put("type", "new");
+                                                break;
+                                            case MODIFIED:
+                                                document.put("type", "modified");
+                                                break;
+                                            case REMOVED:
+                                                document.put("type", "removed");
+                                                break;
+                                            default:
+                                                document.put("type", "metadata");
                                         }
-                                    } catch (Exception e2) {
-                                        handleExceptionWithContext(e2, callbackContext);
+
+                                        QueryDocumentSnapshot documentSnapshot = dc.getDocument();
+                                        document.put("snapshot", mapToJsonObject(documentSnapshot.getData()));
+                                        document.put("source", documentSnapshot.getMetadata().hasPendingWrites() ? "local" : "remote");
+                                        document.put("fromCache", documentSnapshot.getMetadata().isFromCache());
+
+                                        documents.put(documentSnapshot.getId(), document);
                                     }
+                                    if(hasDocuments){
+                                        jsResult.put("documents", documents);
+                                    }
+                                    FirebasePluginEventChannel.postMergeable(FirebasePluginEventChannel.FIRESTORE_LISTENER, id, jsResult, collectionChangesMerger);
+                                }else{
+                                    sendFirestoreListenerError(id, e3);
                                 }
-                            });
+                            } catch (Exception e2) {
+                                sendFirestoreListenerError(id, e2);
+                            }
+                        }
+                    });
 
-                    String id = saveFirestoreListener(registration);
-                    JSONObject jsResult = new JSONObject();
-                    jsResult.put("eventType", "id");
-                    jsResult.put("id", id);
-                    sendPluginResultAndKeepCallback(jsResult, callbackContext);
+            firestoreListeners.put(id, registration);
+            JSONObject jsResult = new JSONObject();
+            jsResult.put("eventType", "id");
+            jsResult.put("id", id);
+            callbackContext.success(jsResult);
 
-                } catch (Exception e1) {
-                    handleExceptionWithContext(e1, callbackContext);
-                }
-            }
-        });
+        } catch (Exception e1) {
+            handleExceptionWithContext(e1, callbackContext);
+        }
     }
 
     private Query applyFiltersToFirestoreCollectionQuery(JSONArray filters, Query query) throws JSONException{
@@ -2482,27 +3199,59 @@ public class FirebasePlugin extends CordovaPlugin {
 
 
     private void removeFirestoreListener(JSONArray args, CallbackContext callbackContext) throws JSONException {
-        cordova.getThreadPool().execute(new Runnable() {
-            public void run() {
-                try {
-                    String id = args.getString(0);
-                    boolean removed = removeFirestoreListener(id);
-                    if(removed){
-                        callbackContext.success();
-                    }else{
-                        callbackContext.error("Listener ID not found");
+        try {
+            String id = args.getString(0);
+            boolean removed = removeFirestoreListener(id);
+            if(removed){
+                callbackContext.success();
+            }else{
+                callbackContext.error("Listener ID not found");
+            }
+        } catch (Exception e1) {
+            handleExceptionWithContext(e1, callbackContext);
+        }
+    }
+
+    /**
+     * Merges consecutive sets of document changes from a collection listener which have not yet been delivered to JS.
+     * A later change to the same document replaces the earlier one, except that a document which JS has not yet seen
+     * remains "new" when modified and is dropped altogether if removed.
+     */
+    private static final FirebasePluginEventChannel.EventMerger collectionChangesMerger = new FirebasePluginEventChannel.EventMerger() {
+        @Override
+        public JSONObject merge(JSONObject pending, JSONObject next) throws JSONException {
+            JSONObject nextDocuments = next.optJSONObject("documents");
+            if(nextDocuments == null){
+                return pending;
+            }
+            JSONObject documents = pending.optJSONObject("documents");
+            if(documents == null){
+                documents = new JSONObject();
+                pending.put("documents", documents);
+            }
+
+            Iterator<String> ids = nextDocuments.keys();
+            while(ids.hasNext()){
+                String documentId = ids.next();
+                JSONObject document = nextDocuments.getJSONObject(documentId);
+                JSONObject pendingDocument = documents.optJSONObject(documentId);
+                if(pendingDocument != null && "new".equals(pendingDocument.optString("type"))){
+                    if("removed".equals(document.optString("type"))){
+                        documents.remove(documentId);
+                        continue;
                     }
-                } catch (Exception e1) {
-                    handleExceptionWithContext(e1, callbackContext);
+                    document.put("type", "new");
                 }
+                documents.put(documentId, document);
             }
-        });
-    }
+            return pending;
+        }
+    };
 
-    private String saveFirestoreListener(ListenerRegistration listenerRegistration){
-        String id = this.generateId();
-        this.firestoreListeners.put(id, listenerRegistration);
-        return id;
+    private void sendFirestoreListenerError(String id, Exception e){
+        FirebasePluginLog.e(TAG, e.toString());
+        logExceptionToCrashlytics(e);
+        FirebasePluginEventChannel.post(FirebasePluginEventChannel.FIRESTORE_LISTENER_ERROR, id, e.getMessage());
     }
 
     private boolean removeFirestoreListener(String id){
@@ -2524,7 +3273,7 @@ public class FirebasePlugin extends CordovaPlugin {
      */
     protected static void handleExceptionWithContext(Exception e, CallbackContext context) {
         String msg = e.toString();
-        Log.e(TAG, msg);
+        FirebasePluginLog.e(TAG, msg);
         if (instance != null) {
             instance.logExceptionToCrashlytics(e);
         }
@@ -2533,7 +3282,7 @@ public class FirebasePlugin extends CordovaPlugin {
 
     protected static void handleExceptionWithoutContext(Exception e){
         String msg = e.toString();
-        Log.e(TAG, msg);
+        FirebasePluginLog.e(TAG, msg);
         if (instance != null) {
             instance.logExceptionToCrashlytics(e);
             instance.logErrorToWebview(msg);
@@ -2571,24 +3320,8 @@ public class FirebasePlugin extends CordovaPlugin {
     }
 
     protected void logErrorToWebview(String msg){
-        Log.e(TAG, msg);
-        executeGlobalJavascript("console.error(\""+TAG+"[native]: "+escapeDoubleQuotes(msg)+"\")");
-    }
-
-    private String escapeDoubleQuotes(String string){
-        String escapedString = string.replace("\"", "\\\"");
-        escapedString = escapedString.replace("%22", "\\%22");
-        return escapedString;
-    }
-
-    private void executeGlobalJavascript(final String jsString){
-        if(cordovaActivity == null) return;
-        cordovaActivity.runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                webView.loadUrl("javascript:" + jsString);
-            }
-        });
+        FirebasePluginLog.e(TAG, msg);
+        FirebasePluginEventChannel.post(FirebasePluginEventChannel.NATIVE_ERROR, msg);
     }
 
     private String saveAuthCredential(AuthCredential authCredential){
@@ -2603,9 +3336,12 @@ public class FirebasePlugin extends CordovaPlugin {
         return id;
     }
 
+    // Sequential rather than random, so IDs of listeners and credentials held at the same time can't collide
+    // (the JS side dispatches listener events by ID)
+    private static final AtomicInteger nextId = new AtomicInteger();
+
     private String generateId(){
-        Random r = new Random();
-        return Integer.toString(r.nextInt(1000+1));
+        return Integer.toString(nextId.incrementAndGet());
     }
 
     private boolean getMetaDataFromManifest(String name) throws Exception{
@@ -2626,7 +3362,7 @@ public class FirebasePlugin extends CordovaPlugin {
 
     private void handleTaskOutcome(@NonNull Task<Void> task, CallbackContext callbackContext) {
         try {
-            task.addOnCompleteListener(new OnCompleteListener<Void>() {
+            task.addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnCompleteListener<Void>() {
                 @Override
                 public void onComplete(@NonNull Task<Void> task) {
                     try {
@@ -2649,7 +3385,7 @@ public class FirebasePlugin extends CordovaPlugin {
 
     private void handleBooleanTaskOutcome(@NonNull Task<Boolean> task, CallbackContext callbackContext) {
         try {
-            task.addOnCompleteListener(new OnCompleteListener<Boolean>() {
+            task.addOnCompleteListener(FirebasePluginExecutors.getTrivialContinuationExecutor(), new OnCompleteListener<Boolean>() {
                 @Override
                 public void onComplete(@NonNull Task<Boolean> task) {
                     try {
@@ -2689,10 +3425,10 @@ public class FirebasePlugin extends CordovaPlugin {
     private AuthCredential obtainAuthCredential(JSONObject jsonCredential) throws JSONException {
         AuthCredential authCredential = null;
         if(jsonCredential.has("verificationId") && jsonCredential.has("code")){
-            Log.d(TAG, "Using specified verificationId and code to authenticate");
+            FirebasePluginLog.d(TAG, "Using specified verificationId and code to authenticate");
             authCredential = (AuthCredential) PhoneAuthProvider.getCredential(jsonCredential.getString("verificationId"), jsonCredential.getString("code"));
         }else if(jsonCredential.has("id") && FirebasePlugin.instance.authCredentials.containsKey(jsonCredential.getString("id"))){
-            Log.d(TAG, "Using native auth credential to authenticate");
+            FirebasePluginLog.d(TAG, "Using native auth credential to authenticate");
             authCredential = FirebasePlugin.instance.authCredentials.get(jsonCredential.getString("id"));
         }
         return authCredential;
@@ -2701,17 +3437,191 @@ public class FirebasePlugin extends CordovaPlugin {
     private OAuthProvider obtainAuthProvider(JSONObject jsonCredential) throws JSONException{
         OAuthProvider authProvider = null;
         if(jsonCredential.has("id") && FirebasePlugin.instance.authProviders.containsKey(jsonCredential.getString("id"))){
-            Log.d(TAG, "Using native auth provider to authenticate");
+            FirebasePluginLog.d(TAG, "Using native auth provider to authenticate");
             authProvider = FirebasePlugin.instance.authProviders.get(jsonCredential.getString("id"));
         }
         return authProvider;
     }
 
 
+    /**
+     * Thread on which an action handler is run.
+     */
+    private enum ActionThread {
+        // Run synchronously on the Cordova bridge thread
+        INLINE,
+        // Run on the main (UI) thread
+        UI,
+        // Run on a background worker thread
+        WORKER
+    }
+
+    /**
+     * Entry in the action registry: an action name, the minimum number of arguments it expects, the thread it should be run on
+     * and the Firebase subsystem whose executor runs it on a worker thread.
+     */
+    private static abstract class ActionHandler {
+        final String action;
+        final int arity;
+        final ActionThread thread;
+        final Subsystem subsystem;
+        final FirebasePluginActionMetrics metrics = new FirebasePluginActionMetrics();
+        int operationIdIndex = -1;
+
+        ActionHandler(String action, int arity, ActionThread thread, Subsystem subsystem) {
+            this.action = action;
+            this.arity = arity;
+            this.thread = thread;
+            this.subsystem = subsystem;
+        }
+
+        abstract void handle(FirebasePlugin plugin, JSONArray args, CallbackContext callbackContext) throws Exception;
+
+        /**
+         * Marks the action as cancellable, with JS passing an operation ID at the given argument index.
+         */
+        ActionHandler cancellable(int operationIdIndex) {
+            this.operationIdIndex = operationIdIndex;
+            return this;
+        }
+    }
+
+    /**
+     * Collects the first result sent for a single operation in a batch and resolves the batch callback
+     * with the aggregated results once every operation in the batch has reported.
+     */
+    private static class BatchEntryCallbackContext extends CallbackContext {
+        private final CallbackContext batchContext;
+        private final JSONArray results;
+        private final int index;
+        private final AtomicInteger pending;
+        private final Runnable timeout;
+        private boolean resolved = false;
+        String action = null;
+
+        BatchEntryCallbackContext(CallbackContext batchContext, JSONArray results, int index, AtomicInteger pending, Runnable timeout) {
+            super(batchContext.getCallbackId(), null);
+            this.batchContext = batchContext;
+            this.results = results;
+            this.index = index;
+            this.pending = pending;
+            this.timeout = timeout;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            synchronized (this) {
+                if(resolved) return;
+                resolved = true;
+            }
+
+            JSONObject entry = new JSONObject();
+            try {
+                entry.put("action", action);
+                entry.put("success", pluginResult.getStatus() == PluginResult.Status.OK.ordinal());
+                String message = pluginResult.getMessage();
+                entry.put("result", message != null ? new JSONTokener(message).nextValue() : JSONObject.NULL);
+            } catch (JSONException e) {
+                FirebasePluginLog.e(TAG, "Failed to serialize batch entry result: " + e.getMessage());
+            }
+
+            synchronized (results) {
+                try {
+                    results.put(index, entry);
+                } catch (JSONException e) {
+                    FirebasePluginLog.e(TAG, "Failed to store batch entry result: " + e.getMessage());
+                }
+            }
+
+            if(pending.decrementAndGet() == 0){
+                batchTimeoutHandler.removeCallbacks(timeout);
+                batchContext.success(results);
+            }
+        }
+    }
+
+    /**
+     * Records an action's latency and outcome when its callback is first resolved, then passes the result on.
+     * For actions which keep their callback open, this is the time to the first result.
+     */
+    private static class InstrumentedCallbackContext extends CallbackContext {
+        private final CallbackContext callbackContext;
+        private final FirebasePluginActionMetrics metrics;
+        private final long receivedNanos;
+        private final AtomicBoolean recorded = new AtomicBoolean(false);
+
+        InstrumentedCallbackContext(CallbackContext callbackContext, FirebasePluginActionMetrics metrics, long receivedNanos) {
+            super(callbackContext.getCallbackId(), null);
+            this.callbackContext = callbackContext;
+            this.metrics = metrics;
+            this.receivedNanos = receivedNanos;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            if(recorded.compareAndSet(false, true)){
+                metrics.recordCompletion(SystemClock.elapsedRealtimeNanos() - receivedNanos, pluginResult.getStatus() != PluginResult.Status.OK.ordinal());
+            }
+            callbackContext.sendPluginResult(pluginResult);
+        }
+    }
+
+    /**
+     * Callback for an operation which can be cancelled by JS.
+     * Whichever comes first of the operation's result and its cancellation is sent to JS; the other is discarded.
+     */
+    private static class CancellableCallbackContext extends CallbackContext {
+        private final CallbackContext callbackContext;
+        private final String operationId;
+        private final Map<String, CancellableCallbackContext> operations;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        private volatile boolean cancelled = false;
+        private Subsystem subsystem = null;
+        private Runnable queuedTask = null;
+
+        CancellableCallbackContext(CallbackContext callbackContext, String operationId, Map<String, CancellableCallbackContext> operations) {
+            super(callbackContext.getCallbackId(), null);
+            this.callbackContext = callbackContext;
+            this.operationId = operationId;
+            this.operations = operations;
+        }
+
+        synchronized void setQueuedTask(Subsystem subsystem, Runnable task) {
+            this.subsystem = subsystem;
+            this.queuedTask = task;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return false if the operation has already completed
+         */
+        boolean cancel() {
+            if(!finished.compareAndSet(false, true)) return false;
+            cancelled = true;
+            synchronized (this) {
+                if(queuedTask != null){
+                    FirebasePluginExecutors.remove(subsystem, queuedTask);
+                }
+            }
+            callbackContext.error("Operation cancelled");
+            return true;
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            if(!finished.compareAndSet(false, true)) return;
+            operations.remove(operationId);
+            callbackContext.sendPluginResult(pluginResult);
+        }
+    }
+
     private static class AuthResultOnSuccessListener implements OnSuccessListener<AuthResult> {
         @Override
         public void onSuccess(AuthResult authResult) {
-            Log.d(TAG, "AuthResult:onSuccess:" + authResult);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "AuthResult:onSuccess:" + authResult);
             if(FirebasePlugin.instance.authResultCallbackContext != null){
                 FirebasePlugin.instance.authResultCallbackContext.success();
             }
@@ -2721,7 +3631,7 @@ public class FirebasePlugin extends CordovaPlugin {
     private static class AuthResultOnFailureListener implements OnFailureListener {
         @Override
         public void onFailure(@NonNull Exception e) {
-            Log.w(TAG, "AuthResult:onFailure", e);
+            FirebasePluginLog.w(TAG, "AuthResult:onFailure", e);
             if(FirebasePlugin.instance.authResultCallbackContext != null){
                 FirebasePlugin.instance.authResultCallbackContext.sendPluginResult(new PluginResult(PluginResult.Status.ERROR, e.getMessage()));
             }
@@ -2749,7 +3659,7 @@ public class FirebasePlugin extends CordovaPlugin {
                     FirebasePlugin.instance.authStateChangeListenerInitialized = true;
                 }else{
                     FirebaseUser user = firebaseAuth.getCurrentUser();
-                    FirebasePlugin.instance.executeGlobalJavascript(JS_GLOBAL_NAMESPACE+"_onAuthStateChange("+(user != null ? "true" : "false")+")");
+                    FirebasePluginEventChannel.post(FirebasePluginEventChannel.AUTH_STATE_CHANGE, user != null);
                 }
             } catch (Exception e) {
                 handleExceptionWithoutContext(e);
@@ -2773,10 +3683,10 @@ public class FirebasePlugin extends CordovaPlugin {
             try{
                 firebaseCrashlytics.log(message);
             }catch (Exception e){
-                Log.e(TAG, e.getMessage());
+                FirebasePluginLog.e(TAG, e.getMessage());
             }
         }else{
-            Log.e(TAG, "Cannot log message - Crashlytics collection is disabled");
+            FirebasePluginLog.e(TAG, "Cannot log message - Crashlytics collection is disabled");
         }
     }
 
@@ -2785,10 +3695,10 @@ public class FirebasePlugin extends CordovaPlugin {
             try{
                 firebaseCrashlytics.recordException(exception);
             }catch (Exception e){
-                Log.e(TAG, e.getMessage());
+                FirebasePluginLog.e(TAG, e.getMessage());
             }
         }else{
-            Log.e(TAG, "Cannot log exception - Crashlytics collection is disabled");
+            FirebasePluginLog.e(TAG, "Cannot log exception - Crashlytics collection is disabled");
         }
     }
 
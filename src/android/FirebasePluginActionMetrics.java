@@ -0,0 +1,116 @@
+package org.apache.cordova.firebase;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Call counts and timings for a single plugin action.
+ * All storage is allocated up front so recording a call never allocates and can be done from any thread without locking.
+ *
+ * Two latencies are recorded for each call:
+ * - queue wait: from the call arriving over the bridge to its handler starting to run
+ * - latency: from the call arriving over the bridge to its callback first being resolved (including any Firebase SDK Task)
+ */
+public class FirebasePluginActionMetrics {
+
+    /**
+     * Upper bounds (inclusive) of the histogram buckets in milliseconds. A final bucket counts anything slower.
+     */
+    static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private static final long NANOS_PER_MS = 1000000;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final Histogram queueWait = new Histogram();
+    private final Histogram latency = new Histogram();
+
+    public void recordQueueWait(long nanos) {
+        calls.incrementAndGet();
+        queueWait.record(nanos);
+    }
+
+    public void recordCompletion(long nanos, boolean error) {
+        completed.incrementAndGet();
+        if (error) {
+            errors.incrementAndGet();
+        }
+        latency.record(nanos);
+    }
+
+    public boolean hasCalls() {
+        return calls.get() > 0;
+    }
+
+    public void reset() {
+        calls.set(0);
+        completed.set(0);
+        errors.set(0);
+        queueWait.reset();
+        latency.reset();
+    }
+
+    public JSONObject toJson() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("calls", calls.get());
+        json.put("completed", completed.get());
+        json.put("errors", errors.get());
+        json.put("queueWait", queueWait.toJson());
+        json.put("latency", latency.toJson());
+        return json;
+    }
+
+    public static JSONArray getBucketBounds() {
+        JSONArray bounds = new JSONArray();
+        for (long bound : BUCKET_BOUNDS_MS) {
+            bounds.put(bound);
+        }
+        return bounds;
+    }
+
+    static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            long ms = nanos / NANOS_PER_MS;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            totalNanos.addAndGet(nanos);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            totalNanos.set(0);
+            maxNanos.set(0);
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("totalMs", (double) totalNanos.get() / NANOS_PER_MS);
+            json.put("maxMs", (double) maxNanos.get() / NANOS_PER_MS);
+            JSONArray counts = new JSONArray();
+            for (int i = 0; i < buckets.length(); i++) {
+                counts.put(buckets.get(i));
+            }
+            json.put("histogram", counts);
+            return json;
+        }
+    }
+}
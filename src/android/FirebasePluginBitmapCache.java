@@ -0,0 +1,125 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide, memory-bounded LRU cache of decoded notification large icons, keyed by drawable resource ID and display density.
+ * Decoding a drawable for every notification is wasteful during a burst of messages, so each icon is decoded once,
+ * downsampled to the size at which the system displays notification large icons, and reused until evicted.
+ */
+public class FirebasePluginBitmapCache {
+
+    private static final String TAG = "FirebasePlugin";
+
+    // Use up to 1/64 of the app's heap, capped at 4MB: enough for dozens of icons at large-icon size
+    private static final int MAX_SIZE_BYTES = (int) Math.min(Runtime.getRuntime().maxMemory() / 64, 4 * 1024 * 1024);
+
+    // Fallback if the platform doesn't define the large-icon dimensions
+    private static final int DEFAULT_LARGE_ICON_SIZE_DP = 64;
+
+    private static final LruCache<String, Bitmap> cache = new LruCache<String, Bitmap>(MAX_SIZE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getByteCount();
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong decodeErrors = new AtomicLong();
+
+    /**
+     * @return the drawable resource decoded at notification large-icon size, or null if it can't be decoded
+     */
+    public static Bitmap getLargeIcon(Context context, int resId) {
+        Resources resources = context.getResources();
+        String key = resId + "@" + resources.getDisplayMetrics().densityDpi;
+
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            hits.incrementAndGet();
+            return bitmap;
+        }
+        misses.incrementAndGet();
+
+        bitmap = decode(resources, resId);
+        if (bitmap == null) {
+            decodeErrors.incrementAndGet();
+            FirebasePluginLog.w(TAG, "Unable to decode large icon resource: " + resId);
+            return null;
+        }
+        // If another thread decoded the same icon concurrently, either copy is fine to keep
+        cache.put(key, bitmap);
+        return bitmap;
+    }
+
+    private static Bitmap decode(Resources resources, int resId) {
+        int targetWidth = getDimension(resources, android.R.dimen.notification_large_icon_width);
+        int targetHeight = getDimension(resources, android.R.dimen.notification_large_icon_height);
+
+        // Read the dimensions only, to pick a sample size which avoids decoding the full-size image
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+
+        int sampleSize = 1;
+        if (options.outWidth > 0 && options.outHeight > 0) {
+            while (options.outWidth / (sampleSize * 2) >= targetWidth && options.outHeight / (sampleSize * 2) >= targetHeight) {
+                sampleSize *= 2;
+            }
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+
+        Bitmap bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        if (bitmap == null) return null;
+
+        // Sampling only reduces by powers of 2 (and density scaling is applied afterwards), so scale down any remaining excess
+        if (bitmap.getWidth() > targetWidth || bitmap.getHeight() > targetHeight) {
+            float scale = Math.min((float) targetWidth / bitmap.getWidth(), (float) targetHeight / bitmap.getHeight());
+            int width = Math.max(1, Math.round(bitmap.getWidth() * scale));
+            int height = Math.max(1, Math.round(bitmap.getHeight() * scale));
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+
+    private static int getDimension(Resources resources, int id) {
+        try {
+            int size = resources.getDimensionPixelSize(id);
+            if (size > 0) return size;
+        } catch (Resources.NotFoundException e) {
+            // Fall through to default
+        }
+        return Math.round(DEFAULT_LARGE_ICON_SIZE_DP * resources.getDisplayMetrics().density);
+    }
+
+    public static void clear() {
+        cache.evictAll();
+    }
+
+    public static JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("entries", cache.snapshot().size());
+        stats.put("sizeBytes", cache.size());
+        stats.put("maxSizeBytes", cache.maxSize());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", cache.evictionCount());
+        stats.put("decodeErrors", decodeErrors.get());
+        return stats;
+    }
+}
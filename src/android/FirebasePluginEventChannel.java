@@ -0,0 +1,332 @@
+package org.apache.cordova.firebase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Single long-lived channel for events sent from native to JS (auth state changes, token refreshes, messages, listener updates, native errors).
+ * Rather than evaluating Javascript in the WebView for each event, events posted within the same coalescing window are
+ * delivered together as an array in one PluginResult on a callback which is registered once from JS and kept open.
+ * Events posted before the channel is registered are buffered (up to a limit) and delivered once it is.
+ *
+ * To stop a chatty source (e.g. a Firestore listener) flooding the bridge faster than the WebView can drain it, JS acknowledges
+ * each batch once it has been handled and no more than a maximum number of unacknowledged batches are in flight at once.
+ * While delivery is held back, events which supersede a pending event from the same source replace it or are merged into it.
+ * If the queue fills up before the channel is registered, the oldest events are dropped. Once it's registered, only superseding or
+ * mergeable events (which a later event from the same source will bring up to date) are dropped: other events (e.g. messages)
+ * are never dropped, so the queue grows past its limit if necessary.
+ *
+ * The window, in-flight limit and buffer size can be overridden via config.xml preferences:
+ * <preference name="FirebasePluginEventCoalescingWindowMs" value="16" />
+ * <preference name="FirebasePluginEventMaxInFlight" value="2" />
+ * <preference name="FirebasePluginEventQueueSize" value="256" />
+ */
+public class FirebasePluginEventChannel {
+
+    private static final String TAG = "FirebasePlugin";
+
+    public static final String AUTH_STATE_CHANGE = "authStateChange";
+    public static final String TOKEN_REFRESH = "tokenRefresh";
+    public static final String MESSAGE = "message";
+    public static final String FIRESTORE_LISTENER = "firestoreListener";
+    public static final String FIRESTORE_LISTENER_ERROR = "firestoreListenerError";
+    public static final String NATIVE_ERROR = "nativeError";
+
+    /**
+     * Merges an event into a pending event of the same type from the same source.
+     */
+    public interface EventMerger {
+        /**
+         * @return the merged event data, or null if the events cannot be merged and must both be delivered
+         */
+        JSONObject merge(JSONObject pending, JSONObject next) throws JSONException;
+    }
+
+    // Approximately one display frame
+    private static final long DEFAULT_COALESCING_WINDOW_MS = 16;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final int DEFAULT_QUEUE_SIZE = 256;
+    // Assume a batch has been handled if it's not acknowledged within this time, e.g. because the page was reloaded
+    private static final long ACK_TIMEOUT_MS = 1000;
+
+    private static long coalescingWindowMs = DEFAULT_COALESCING_WINDOW_MS;
+    private static int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private static int queueSize = DEFAULT_QUEUE_SIZE;
+
+    // Times flushes; the batch is built and serialized on flushExecutor, then only sent to JS from the main thread
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+    // Serial, so batches are sent in order
+    private static final Executor flushExecutor = FirebasePluginExecutors.newSerialContinuationExecutor();
+    private static final List<PendingEvent> pendingEvents = new ArrayList<PendingEvent>();
+    private static CallbackContext callbackContext = null;
+    private static boolean flushScheduled = false;
+    private static int inFlight = 0;
+    private static long lastDeliveryTime = 0;
+
+    // Stats
+    private static long postedCount = 0;
+    private static long deliveredCount = 0;
+    private static long batchCount = 0;
+    private static long supersededCount = 0;
+    private static long mergedCount = 0;
+    private static long overflowCount = 0;
+    private static long evictedCount = 0;
+    private static long overLimitCount = 0;
+    private static int largestQueueDepth = 0;
+
+    private static final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private static final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushExecutor.execute(flush);
+        }
+    };
+
+    public static synchronized void configure(CordovaPreferences preferences) {
+        coalescingWindowMs = Math.max(0, preferences.getInteger("FirebasePluginEventCoalescingWindowMs", (int) DEFAULT_COALESCING_WINDOW_MS));
+        maxInFlight = Math.max(1, preferences.getInteger("FirebasePluginEventMaxInFlight", DEFAULT_MAX_IN_FLIGHT));
+        queueSize = Math.max(1, preferences.getInteger("FirebasePluginEventQueueSize", DEFAULT_QUEUE_SIZE));
+    }
+
+    /**
+     * Sets the JS callback to which events are delivered, delivering any events buffered while there was none.
+     */
+    public static synchronized void register(CallbackContext context) {
+        callbackContext = context;
+        inFlight = 0;
+        scheduleFlush();
+    }
+
+    public static synchronized void unregister() {
+        callbackContext = null;
+        inFlight = 0;
+    }
+
+    public static synchronized boolean isRegistered() {
+        return callbackContext != null;
+    }
+
+    /**
+     * Called by JS once it has handled a batch of events.
+     */
+    public static synchronized void acknowledge() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+        if (flushScheduled) {
+            // Replace any flush deferred while waiting for this acknowledgement
+            handler.removeCallbacks(flushRunnable);
+            flushScheduled = false;
+        }
+        scheduleFlush();
+    }
+
+    public static void post(String type, Object data) {
+        post(type, null, data);
+    }
+
+    /**
+     * Queues an event for delivery with the next batch.
+     *
+     * @param type type of event, used by JS to route the event
+     * @param id   (optional) identifier of the source of the event, e.g. a Firestore listener ID
+     * @param data event payload: a JSONObject, JSONArray, String, Boolean or Number
+     */
+    public static void post(String type, String id, Object data) {
+        enqueue(type, id, data, false, null);
+    }
+
+    /**
+     * Queues an event which supersedes any pending event of the same type from the same source, e.g. a snapshot of a document.
+     * The pending event is dropped.
+     */
+    public static void postLatest(String type, String id, Object data) {
+        enqueue(type, id, data, true, null);
+    }
+
+    /**
+     * Queues an event which can be merged with a pending event of the same type from the same source, e.g. a set of changes to a collection.
+     */
+    public static void postMergeable(String type, String id, JSONObject data, EventMerger merger) {
+        enqueue(type, id, data, false, merger);
+    }
+
+    private static synchronized void enqueue(String type, String id, Object data, boolean supersedes, EventMerger merger) {
+        postedCount++;
+        try {
+            if (id != null && (supersedes || merger != null)) {
+                PendingEvent pending = findPending(type, id);
+                if (pending != null) {
+                    if (supersedes) {
+                        pending.data = data;
+                        supersededCount++;
+                        return;
+                    }
+                    if (pending.data instanceof JSONObject) {
+                        JSONObject merged = merger.merge((JSONObject) pending.data, (JSONObject) data);
+                        if (merged != null) {
+                            pending.data = merged;
+                            mergedCount++;
+                            return;
+                        }
+                    }
+                }
+            }
+
+            if (pendingEvents.size() >= queueSize) {
+                makeRoom();
+            }
+            pendingEvents.add(new PendingEvent(type, id, data, supersedes || merger != null));
+            largestQueueDepth = Math.max(largestQueueDepth, pendingEvents.size());
+            scheduleFlush();
+        } catch (JSONException e) {
+            FirebasePluginLog.e(TAG, "Unable to post " + type + " event: " + e.toString());
+        }
+    }
+
+    private static void makeRoom() {
+        if (callbackContext == null) {
+            FirebasePluginLog.w(TAG, "Event channel queue full - dropping oldest event");
+            pendingEvents.remove(0);
+            overflowCount++;
+            return;
+        }
+        // Delivery is only held back by backpressure, so just drop the oldest event which a later one can bring up to date
+        for (int i = 0; i < pendingEvents.size(); i++) {
+            if (pendingEvents.get(i).replaceable) {
+                FirebasePluginLog.w(TAG, "Event channel queue full - dropping oldest listener event");
+                pendingEvents.remove(i);
+                evictedCount++;
+                return;
+            }
+        }
+        overLimitCount++;
+    }
+
+    private static PendingEvent findPending(String type, String id) {
+        // Search from the newest event so a merge never reorders events from the same source
+        for (int i = pendingEvents.size() - 1; i >= 0; i--) {
+            PendingEvent event = pendingEvents.get(i);
+            if (id.equals(event.id)) {
+                return type.equals(event.type) ? event : null;
+            }
+        }
+        return null;
+    }
+
+    public static synchronized JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        stats.put("registered", callbackContext != null);
+        stats.put("coalescingWindowMs", coalescingWindowMs);
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("queueSize", queueSize);
+        stats.put("inFlight", inFlight);
+        stats.put("queueDepth", pendingEvents.size());
+        stats.put("largestQueueDepth", largestQueueDepth);
+        stats.put("posted", postedCount);
+        stats.put("delivered", deliveredCount);
+        stats.put("batches", batchCount);
+        stats.put("superseded", supersededCount);
+        stats.put("merged", mergedCount);
+        stats.put("overflowed", overflowCount);
+        stats.put("evicted", evictedCount);
+        stats.put("overLimit", overLimitCount);
+        return stats;
+    }
+
+    private static void scheduleFlush() {
+        if (flushScheduled || callbackContext == null || pendingEvents.isEmpty()) return;
+        flushScheduled = true;
+        long delay = coalescingWindowMs;
+        if (inFlight >= maxInFlight) {
+            // Check again once the acknowledgement timeout has passed in case it never arrives
+            delay = Math.max(delay, ACK_TIMEOUT_MS - (SystemClock.uptimeMillis() - lastDeliveryTime));
+        }
+        handler.postDelayed(flushRunnable, delay);
+    }
+
+    private static void flush() {
+        final CallbackContext context;
+        JSONArray events = new JSONArray();
+        synchronized (FirebasePluginEventChannel.class) {
+            flushScheduled = false;
+            context = callbackContext;
+            if (context == null || pendingEvents.isEmpty()) return;
+
+            if (inFlight >= maxInFlight) {
+                if (SystemClock.uptimeMillis() - lastDeliveryTime < ACK_TIMEOUT_MS) {
+                    // Wait for JS to catch up: acknowledge() will schedule the next flush
+                    scheduleFlush();
+                    return;
+                }
+                FirebasePluginLog.w(TAG, "Event channel batch not acknowledged - resuming delivery");
+                inFlight = 0;
+            }
+
+            try {
+                for (PendingEvent pending : pendingEvents) {
+                    events.put(pending.toJson());
+                }
+            } catch (JSONException e) {
+                FirebasePluginLog.e(TAG, "Unable to deliver events: " + e.toString());
+            }
+            deliveredCount += pendingEvents.size();
+            batchCount++;
+            pendingEvents.clear();
+            inFlight++;
+            lastDeliveryTime = SystemClock.uptimeMillis();
+        }
+
+        final PluginResult result = new PluginResult(PluginResult.Status.OK, events);
+        result.setKeepCallback(true);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                context.sendPluginResult(result);
+            }
+        });
+    }
+
+    private static class PendingEvent {
+        final String type;
+        final String id;
+        Object data;
+        // True if posted via postLatest() or postMergeable()
+        final boolean replaceable;
+
+        PendingEvent(String type, String id, Object data, boolean replaceable) {
+            this.type = type;
+            this.id = id;
+            this.data = data;
+            this.replaceable = replaceable;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject event = new JSONObject();
+            event.put("type", type);
+            if (id != null) {
+                event.put("id", id);
+            }
+            event.put("data", data != null ? data : JSONObject.NULL);
+            return event;
+        }
+    }
+}
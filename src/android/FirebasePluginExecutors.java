@@ -0,0 +1,317 @@
+package org.apache.cordova.firebase;
+
+import org.apache.cordova.CordovaPreferences;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated, bounded executors for each Firebase subsystem used by the plugin.
+ * Keeps slow operations (e.g. Firestore queries) from starving cheap ones (e.g. Analytics events)
+ * and from competing with other plugins for the shared Cordova thread pool.
+ *
+ * Thread count and queue size for each subsystem can be overridden via config.xml preferences, e.g.:
+ * <preference name="FirebasePluginFirestoreThreads" value="4" />
+ * <preference name="FirebasePluginFirestoreQueueSize" value="128" />
+ * <preference name="FirebasePluginFirestoreSaturationPolicy" value="CALLER_RUNS" />
+ *
+ * Listeners added to Play Services Tasks are run on the Continuation executor rather than the main thread.
+ * Trivial completions (which only signal success or failure) can instead be run inline on the thread that completes the Task:
+ * <preference name="FirebasePluginInlineTrivialContinuations" value="true" />
+ */
+public class FirebasePluginExecutors {
+
+    /**
+     * What to do with a task submitted when a subsystem's queue is full.
+     */
+    public enum SaturationPolicy {
+        // Reject the task so its callback receives an error
+        ABORT,
+        // Run the task on the submitting thread, slowing down the caller
+        CALLER_RUNS,
+        // Wait briefly for room in the queue, then reject the task, so tasks which do run are run in the order submitted.
+        // The wait is bounded as tasks are usually submitted from the Cordova bridge thread, which all plugins share.
+        BLOCK
+    }
+
+    public enum Subsystem {
+        MESSAGING("Messaging", 2, 64, SaturationPolicy.CALLER_RUNS),
+        // Single-threaded, and blocking when full, to preserve the order in which events and user properties are set
+        ANALYTICS("Analytics", 1, 256, SaturationPolicy.BLOCK),
+        CRASHLYTICS("Crashlytics", 1, 128, SaturationPolicy.BLOCK),
+        REMOTE_CONFIG("RemoteConfig", 1, 32, SaturationPolicy.ABORT),
+        AUTH("Auth", 2, 32, SaturationPolicy.ABORT),
+        // Single-threaded, and blocking when full, so start/increment/stop calls on a trace are applied in order
+        PERFORMANCE("Performance", 1, 128, SaturationPolicy.BLOCK),
+        FIRESTORE("Firestore", 3, 128, SaturationPolicy.ABORT),
+        // Plugin-internal actions such as batches and diagnostics
+        PLUGIN("Plugin", 1, 32, SaturationPolicy.CALLER_RUNS),
+        // Task listener continuations, so result marshalling stays off the main thread
+        CONTINUATION("Continuation", 2, 256, SaturationPolicy.CALLER_RUNS);
+
+        final String name;
+        final int defaultThreads;
+        final int defaultQueueSize;
+        final SaturationPolicy saturationPolicy;
+
+        Subsystem(String name, int defaultThreads, int defaultQueueSize, SaturationPolicy saturationPolicy) {
+            this.name = name;
+            this.defaultThreads = defaultThreads;
+            this.defaultQueueSize = defaultQueueSize;
+            this.saturationPolicy = saturationPolicy;
+        }
+    }
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    // Longest a task submitted with the BLOCK policy waits for room in a full queue
+    private static final long BLOCK_TIMEOUT_MS = 100;
+
+    private static final Map<Subsystem, ThreadPoolExecutor> executors = new EnumMap<Subsystem, ThreadPoolExecutor>(Subsystem.class);
+    private static final Map<Subsystem, AtomicLong> saturatedCounts = new EnumMap<Subsystem, AtomicLong>(Subsystem.class);
+    private static CordovaPreferences preferences = null;
+
+    private static final Executor inlineExecutor = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    };
+
+    private static final Executor continuationExecutor = new Executor() {
+        @Override
+        public void execute(Runnable task) {
+            FirebasePluginExecutors.execute(Subsystem.CONTINUATION, task);
+        }
+    };
+
+    static {
+        for (Subsystem subsystem : Subsystem.values()) {
+            saturatedCounts.put(subsystem, new AtomicLong());
+        }
+    }
+
+    /**
+     * Sets the preferences used to size executors.
+     * Must be called before the first task is submitted for a preference to take effect for that subsystem.
+     */
+    public static synchronized void configure(CordovaPreferences cordovaPreferences) {
+        preferences = cordovaPreferences;
+    }
+
+    /**
+     * Submits a task to the executor for the given subsystem.
+     *
+     * @throws RejectedExecutionException if the subsystem's queue is full and its saturation policy is ABORT
+     * (or BLOCK and the queue is still full after waiting)
+     */
+    public static void execute(Subsystem subsystem, Runnable task) throws RejectedExecutionException {
+        get(subsystem).execute(task);
+    }
+
+    /**
+     * Removes a task from the given subsystem's queue if it has not yet started.
+     *
+     * @return true if the task was removed
+     */
+    public static boolean remove(Subsystem subsystem, Runnable task) {
+        return get(subsystem).remove(task);
+    }
+
+    /**
+     * Executor on which Task listeners should be run so that marshalling their results doesn't compete with WebView rendering on the main thread.
+     */
+    public static Executor getContinuationExecutor() {
+        return continuationExecutor;
+    }
+
+    /**
+     * Creates an executor which runs its tasks one at a time, in the order submitted, on the continuation executor.
+     * Use one per snapshot listener, so consecutive snapshots are never converted in parallel and delivered out of order.
+     */
+    public static Executor newSerialContinuationExecutor() {
+        return new SerialExecutor(continuationExecutor);
+    }
+
+    /**
+     * Executor for Task listeners which do no more than signal success or failure to a callback.
+     * Runs them inline if FirebasePluginInlineTrivialContinuations is enabled, otherwise on the continuation executor.
+     */
+    public static Executor getTrivialContinuationExecutor() {
+        return isInlineTrivialContinuations() ? inlineExecutor : continuationExecutor;
+    }
+
+    public static synchronized ThreadPoolExecutor get(Subsystem subsystem) {
+        ThreadPoolExecutor executor = executors.get(subsystem);
+        if (executor == null) {
+            executor = createExecutor(subsystem);
+            executors.put(subsystem, executor);
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the current load of each subsystem executor, keyed by subsystem name.
+     * Subsystems which have not yet been used report their configured sizes with no pool threads.
+     */
+    public static JSONObject getStats() throws JSONException {
+        JSONObject stats = new JSONObject();
+        for (Subsystem subsystem : Subsystem.values()) {
+            ThreadPoolExecutor executor;
+            synchronized (FirebasePluginExecutors.class) {
+                executor = executors.get(subsystem);
+            }
+            JSONObject subsystemStats = new JSONObject();
+            subsystemStats.put("threads", executor != null ? executor.getMaximumPoolSize() : getThreads(subsystem));
+            subsystemStats.put("queueCapacity", executor != null ? executor.getQueue().size() + executor.getQueue().remainingCapacity() : getQueueSize(subsystem));
+            subsystemStats.put("saturationPolicy", getSaturationPolicy(subsystem).name());
+            subsystemStats.put("activeThreads", executor != null ? executor.getActiveCount() : 0);
+            subsystemStats.put("poolSize", executor != null ? executor.getPoolSize() : 0);
+            subsystemStats.put("largestPoolSize", executor != null ? executor.getLargestPoolSize() : 0);
+            subsystemStats.put("queueDepth", executor != null ? executor.getQueue().size() : 0);
+            subsystemStats.put("completedTasks", executor != null ? executor.getCompletedTaskCount() : 0);
+            subsystemStats.put("saturatedTasks", saturatedCounts.get(subsystem).get());
+            stats.put(subsystem.name, subsystemStats);
+        }
+        return stats;
+    }
+
+    private static ThreadPoolExecutor createExecutor(final Subsystem subsystem) {
+        int threads = getThreads(subsystem);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(getQueueSize(subsystem)),
+                new NamedThreadFactory(subsystem),
+                new SaturationHandler(subsystem, getSaturationPolicy(subsystem))
+        );
+        // Let idle subsystems release their threads
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int getThreads(Subsystem subsystem) {
+        return Math.max(1, getPreference("FirebasePlugin" + subsystem.name + "Threads", subsystem.defaultThreads));
+    }
+
+    private static int getQueueSize(Subsystem subsystem) {
+        return Math.max(1, getPreference("FirebasePlugin" + subsystem.name + "QueueSize", subsystem.defaultQueueSize));
+    }
+
+    private static SaturationPolicy getSaturationPolicy(Subsystem subsystem) {
+        if (preferences == null) return subsystem.saturationPolicy;
+        String policy = preferences.getString("FirebasePlugin" + subsystem.name + "SaturationPolicy", subsystem.saturationPolicy.name());
+        try {
+            return SaturationPolicy.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return subsystem.saturationPolicy;
+        }
+    }
+
+    private static synchronized boolean isInlineTrivialContinuations() {
+        return preferences != null && preferences.getBoolean("FirebasePluginInlineTrivialContinuations", false);
+    }
+
+    private static int getPreference(String name, int defaultValue) {
+        if (preferences == null) return defaultValue;
+        return preferences.getInteger(name, defaultValue);
+    }
+
+    private static class SerialExecutor implements Executor {
+        private final Executor executor;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+        private boolean running = false;
+
+        private final Runnable drain = new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    Runnable task;
+                    synchronized (SerialExecutor.this) {
+                        task = tasks.poll();
+                        if (task == null) {
+                            running = false;
+                            return;
+                        }
+                    }
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // Keep draining: later tasks must still run
+                        FirebasePluginLog.e("FirebasePlugin", "Serial task failed", e);
+                    }
+                }
+            }
+        };
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            synchronized (this) {
+                tasks.add(task);
+                if (running) return;
+                running = true;
+            }
+            executor.execute(drain);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final Subsystem subsystem;
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        NamedThreadFactory(Subsystem subsystem) {
+            this.subsystem = subsystem;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "FirebasePlugin-" + subsystem.name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    private static class SaturationHandler implements RejectedExecutionHandler {
+        private final Subsystem subsystem;
+        private final SaturationPolicy policy;
+
+        SaturationHandler(Subsystem subsystem, SaturationPolicy policy) {
+            this.subsystem = subsystem;
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            saturatedCounts.get(subsystem).incrementAndGet();
+            if (policy == SaturationPolicy.CALLER_RUNS && !executor.isShutdown()) {
+                task.run();
+            } else if (policy == SaturationPolicy.BLOCK && !executor.isShutdown()) {
+                try {
+                    if (executor.getQueue().offer(task, BLOCK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new RejectedExecutionException(subsystem.name + " queue is full");
+            } else {
+                throw new RejectedExecutionException(subsystem.name + " queue is full");
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import android.util.Log;
+
+import org.apache.cordova.CordovaPreferences;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Level-gated logging for the plugin.
+ * Callers building a message (e.g. by concatenation) on a hot path should check isLoggable() first, so that nothing is allocated
+ * for a disabled level.
+ *
+ * The level is one of verbose, debug, info, warn, error or none. It's read from the manifest meta-data firebase_plugin_log_level
+ * (set via the ANDROID_FIREBASE_PLUGIN_LOG_LEVEL plugin variable) so it applies even when the messaging service runs without the
+ * plugin, and can be overridden via a config.xml preference:
+ * <preference name="FirebasePluginLogLevel" value="warn" />
+ * By default debug builds log from debug and release builds from warn.
+ *
+ * Logged messages can optionally also be kept in an in-memory ring buffer, to be fetched via getDiagnostics():
+ * <preference name="FirebasePluginLogBufferSize" value="200" />
+ */
+public class FirebasePluginLog {
+
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int NONE = Integer.MAX_VALUE;
+
+    private static final String MANIFEST_LOG_LEVEL = "firebase_plugin_log_level";
+    private static final String[] LEVEL_NAMES = {"verbose", "debug", "info", "warn", "error"};
+
+    private static volatile int level = DEBUG;
+    private static boolean initialized = false;
+
+    // Ring buffer of recent messages, allocated only if enabled
+    private static long[] bufferTimes = null;
+    private static int[] bufferLevels = null;
+    private static String[] bufferMessages = null;
+    private static int bufferNext = 0;
+    private static int bufferCount = 0;
+
+    /**
+     * Sets the level from the manifest. Runs once per process.
+     */
+    public static synchronized void init(Context context) {
+        if (initialized) return;
+        initialized = true;
+        try {
+            ApplicationInfo info = context.getApplicationInfo();
+            level = (info.flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0 ? DEBUG : WARN;
+
+            Bundle metaData = context.getPackageManager().getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA).metaData;
+            if (metaData != null) {
+                level = parseLevel(metaData.getString(MANIFEST_LOG_LEVEL), level);
+            }
+        } catch (Exception e) {
+            Log.w(FirebasePlugin.TAG, "Unable to read log level from manifest", e);
+        }
+    }
+
+    public static synchronized void configure(Context context, CordovaPreferences preferences) {
+        init(context);
+        level = parseLevel(preferences.getString("FirebasePluginLogLevel", null), level);
+
+        int bufferSize = Math.max(0, preferences.getInteger("FirebasePluginLogBufferSize", 0));
+        if (bufferSize > 0) {
+            bufferTimes = new long[bufferSize];
+            bufferLevels = new int[bufferSize];
+            bufferMessages = new String[bufferSize];
+        } else {
+            bufferTimes = null;
+            bufferLevels = null;
+            bufferMessages = null;
+        }
+        bufferNext = 0;
+        bufferCount = 0;
+    }
+
+    private static int parseLevel(String name, int defaultLevel) {
+        if (name == null || name.isEmpty() || name.equalsIgnoreCase("auto")) return defaultLevel;
+        if (name.equalsIgnoreCase("none")) return NONE;
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equalsIgnoreCase(name)) return VERBOSE + i;
+        }
+        Log.w(FirebasePlugin.TAG, "Unknown log level: " + name);
+        return defaultLevel;
+    }
+
+    public static boolean isLoggable(int messageLevel) {
+        return messageLevel >= level;
+    }
+
+    public static void v(String tag, String message) {
+        if (isLoggable(VERBOSE)) {
+            Log.v(tag, message);
+            record(VERBOSE, message);
+        }
+    }
+
+    public static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            Log.d(tag, message);
+            record(DEBUG, message);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (isLoggable(INFO)) {
+            Log.i(tag, message);
+            record(INFO, message);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (isLoggable(WARN)) {
+            Log.w(tag, message);
+            record(WARN, message);
+        }
+    }
+
+    public static void w(String tag, String message, Throwable e) {
+        if (isLoggable(WARN)) {
+            Log.w(tag, message, e);
+            record(WARN, message + ": " + e.toString());
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (isLoggable(ERROR)) {
+            Log.e(tag, message);
+            record(ERROR, message);
+        }
+    }
+
+    public static void e(String tag, String message, Throwable e) {
+        if (isLoggable(ERROR)) {
+            Log.e(tag, message, e);
+            record(ERROR, message + ": " + e.toString());
+        }
+    }
+
+    private static synchronized void record(int messageLevel, String message) {
+        if (bufferMessages == null) return;
+        bufferTimes[bufferNext] = System.currentTimeMillis();
+        bufferLevels[bufferNext] = messageLevel;
+        bufferMessages[bufferNext] = message;
+        bufferNext = (bufferNext + 1) % bufferMessages.length;
+        bufferCount = Math.min(bufferCount + 1, bufferMessages.length);
+    }
+
+    /**
+     * @return messages in the ring buffer, oldest first, as [{time, level, message}]
+     */
+    public static synchronized JSONArray getDiagnostics() throws JSONException {
+        JSONArray diagnostics = new JSONArray();
+        if (bufferMessages == null) return diagnostics;
+        int start = (bufferNext - bufferCount + bufferMessages.length) % bufferMessages.length;
+        for (int i = 0; i < bufferCount; i++) {
+            int index = (start + i) % bufferMessages.length;
+            JSONObject entry = new JSONObject();
+            entry.put("time", bufferTimes[index]);
+            entry.put("level", LEVEL_NAMES[bufferLevels[index] - VERBOSE]);
+            entry.put("message", bufferMessages[index]);
+            diagnostics.put(entry);
+        }
+        return diagnostics;
+    }
+
+    public static synchronized void clearDiagnostics() {
+        if (bufferMessages == null) return;
+        for (int i = 0; i < bufferMessages.length; i++) {
+            bufferMessages[i] = null;
+        }
+        bufferNext = 0;
+        bufferCount = 0;
+    }
+}
@@ -0,0 +1,247 @@
+package org.apache.cordova.firebase;
+
+import android.app.Notification;
+import android.os.Build;
+import android.os.Bundle;
+
+import com.google.firebase.messaging.RemoteMessage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A received FCM message, parsed in a single pass over its data payload.
+ * The Bundle (used for the notification intent and by message receivers) and JSON (sent to JS) representations
+ * are only built when first requested, then reused.
+ */
+public class FirebasePluginMessage {
+
+    // Keys which toBundle() adds to the data payload, besides "google." keys
+    private static final Set<String> FIELD_KEYS = new HashSet<String>(Arrays.asList(
+            "messageType", "id", "title", "body", "sound", "vibrate", "light", "color", "icon", "channel_id", "priority",
+            "visibility", "show_notification", "from", "collapse_key", "sent_time", "ttl", "tap"
+    ));
+
+    private final RemoteMessage remoteMessage;
+    private final Map<String, String> data;
+
+    String messageId;
+    String messageType;
+    String id;
+    String title;
+    String body;
+    String sound;
+    String vibrate;
+    // String containing hex ARGB color, milliseconds on, milliseconds off, e.g. '#FFFF00FF,1000,3000'
+    String light;
+    String color;
+    String icon;
+    String channelId;
+    String visibility;
+    String priority;
+    String from;
+    String collapseKey;
+    long sentTime;
+    int ttl;
+    boolean foregroundNotification = false;
+    boolean showNotification = false;
+    // Native notification ID: the hash of the id specified by the message, else allocated by FirebasePluginNotificationIds
+    int notificationId;
+    // Set by the render stage of the message pipeline if a notification should be displayed
+    Notification notification = null;
+    // Set by the render stage if the notification is grouped (see FirebasePluginNotificationGroups)
+    String groupKey = null;
+    Notification groupSummary = null;
+    int groupSummaryId;
+
+    private Bundle bundle = null;
+    private JSONObject json = null;
+
+    private FirebasePluginMessage(RemoteMessage remoteMessage) {
+        this.remoteMessage = remoteMessage;
+        this.data = remoteMessage.getData();
+    }
+
+    public static FirebasePluginMessage parse(RemoteMessage remoteMessage) {
+        FirebasePluginMessage message = new FirebasePluginMessage(remoteMessage);
+        message.messageId = remoteMessage.getMessageId();
+        message.from = remoteMessage.getFrom();
+        message.collapseKey = remoteMessage.getCollapseKey();
+        message.sentTime = remoteMessage.getSentTime();
+        message.ttl = remoteMessage.getTtl();
+
+        RemoteMessage.Notification notification = remoteMessage.getNotification();
+        if (notification != null) {
+            message.messageType = "notification";
+            message.id = message.messageId;
+            message.title = notification.getTitle();
+            message.body = notification.getBody();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                message.channelId = notification.getChannelId();
+            }
+            message.sound = notification.getSound();
+            message.color = notification.getColor();
+            message.icon = notification.getIcon();
+        } else {
+            message.messageType = "data";
+        }
+
+        // Values in the data payload override those of the notification payload
+        if (message.data != null) {
+            for (Map.Entry<String, String> entry : message.data.entrySet()) {
+                String key = entry.getKey();
+                if (!key.startsWith("notification_")) continue;
+                message.applyDataKey(key, entry.getValue());
+            }
+        }
+        return message;
+    }
+
+    private void applyDataKey(String key, String value) {
+        switch (key) {
+            case "notification_foreground":
+                foregroundNotification = true;
+                break;
+            case "notification_title":
+                title = value;
+                break;
+            case "notification_body":
+                body = value;
+                break;
+            case "notification_android_channel_id":
+                channelId = value;
+                break;
+            case "notification_android_id":
+                id = value;
+                break;
+            case "notification_android_sound":
+                sound = value;
+                break;
+            case "notification_android_vibrate":
+                vibrate = value;
+                break;
+            case "notification_android_light":
+                light = value;
+                break;
+            case "notification_android_color":
+                color = value;
+                break;
+            case "notification_android_icon":
+                icon = value;
+                break;
+            case "notification_android_visibility":
+                visibility = value;
+                break;
+            case "notification_android_priority":
+                priority = value;
+                break;
+        }
+    }
+
+    public RemoteMessage getRemoteMessage() {
+        return remoteMessage;
+    }
+
+    public boolean hasData() {
+        return data != null && !data.isEmpty();
+    }
+
+    Map<String, String> getData() {
+        return data;
+    }
+
+    /**
+     * @return true if the key is one which the plugin adds to a message's bundle rather than part of its data payload.
+     * Used where only the bundle is available, e.g. for a queued message.
+     */
+    static boolean isFieldKey(String key) {
+        return FIELD_KEYS.contains(key) || key.startsWith("google.");
+    }
+
+    /**
+     * @return the message as a Bundle containing the data payload plus the parsed message fields.
+     * Fields don't replace data payload values with the same key. The Bundle is cached, so must not be modified:
+     * it's copied before being passed to receivers.
+     */
+    public Bundle toBundle() {
+        if (bundle != null) return bundle;
+
+        Bundle b = new Bundle();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                b.putString(entry.getKey(), entry.getValue());
+            }
+        }
+        b.putString("messageType", messageType);
+        putField(b, "google.message_id", messageId);
+        putField(b, "id", id);
+        putField(b, "title", title);
+        putField(b, "body", body);
+        putField(b, "sound", sound);
+        putField(b, "vibrate", vibrate);
+        putField(b, "light", light);
+        putField(b, "color", color);
+        putField(b, "icon", icon);
+        putField(b, "channel_id", channelId);
+        putField(b, "priority", priority);
+        putField(b, "visibility", visibility);
+        putField(b, "show_notification", String.valueOf(showNotification));
+        putField(b, "from", from);
+        putField(b, "collapse_key", collapseKey);
+        putField(b, "sent_time", String.valueOf(sentTime));
+        putField(b, "ttl", String.valueOf(ttl));
+        bundle = b;
+        return bundle;
+    }
+
+    /**
+     * @return the message in the same format as toBundle(), as JSON for sending to JS. The JSON is cached, so must not be modified.
+     */
+    public JSONObject toJson() throws JSONException {
+        if (json != null) return json;
+
+        JSONObject j = new JSONObject();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                j.put(entry.getKey(), entry.getValue());
+            }
+        }
+        j.put("messageType", messageType);
+        putField(j, "google.message_id", messageId);
+        putField(j, "id", id);
+        putField(j, "title", title);
+        putField(j, "body", body);
+        putField(j, "sound", sound);
+        putField(j, "vibrate", vibrate);
+        putField(j, "light", light);
+        putField(j, "color", color);
+        putField(j, "icon", icon);
+        putField(j, "channel_id", channelId);
+        putField(j, "priority", priority);
+        putField(j, "visibility", visibility);
+        putField(j, "show_notification", String.valueOf(showNotification));
+        putField(j, "from", from);
+        putField(j, "collapse_key", collapseKey);
+        putField(j, "sent_time", String.valueOf(sentTime));
+        putField(j, "ttl", String.valueOf(ttl));
+        json = j;
+        return json;
+    }
+
+    private void putField(Bundle b, String key, String value) {
+        if (value != null && (data == null || !data.containsKey(key))) {
+            b.putString(key, value);
+        }
+    }
+
+    private void putField(JSONObject j, String key, String value) throws JSONException {
+        if (value != null && (data == null || !data.containsKey(key))) {
+            j.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+
+import org.apache.cordova.CordovaPreferences;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Drops messages which have already been passed to the plugin, e.g. a message delivered by FCM more than once, or a notification tap
+ * seen both in the launch intent on startup and via onNewIntent().
+ *
+ * Messages are identified by their google.message_id plus whether they are a notification tap,
+ * so that tapping a notification for a message which has already been received is still delivered.
+ * The IDs of the most recent messages are kept in a bounded LRU which can optionally be persisted so duplicates are also caught
+ * across app restarts:
+ * <preference name="FirebasePluginMessageDeduplicationSize" value="100" /> (0 to disable)
+ * <preference name="FirebasePluginPersistMessageIds" value="true" />
+ */
+public class FirebasePluginMessageDeduplicator {
+
+    private static final String TAG = "FirebasePlugin";
+    private static final String PREFERENCES_KEY = "recentMessageIds";
+    private static final int DEFAULT_SIZE = 100;
+
+    private static int maxSize = DEFAULT_SIZE;
+    private static boolean persist = false;
+
+    // Restored from SharedPreferences on first use if persisted
+    private static Map<String, Boolean> recentIds = null;
+
+    public static synchronized void configure(CordovaPreferences preferences) {
+        maxSize = Math.max(0, preferences.getInteger("FirebasePluginMessageDeduplicationSize", DEFAULT_SIZE));
+        persist = preferences.getBoolean("FirebasePluginPersistMessageIds", false);
+    }
+
+    /**
+     * Records the message as seen.
+     *
+     * @return true if the message has been seen before so should be dropped
+     */
+    public static boolean isDuplicate(Context context, Bundle bundle) {
+        if (bundle == null) return false;
+        return isDuplicate(context, bundle.getString("google.message_id"), bundle.containsKey("tap"));
+    }
+
+    /**
+     * Records the message as seen.
+     *
+     * @param messageId FCM message ID, or null if the message doesn't have one (in which case it's never a duplicate)
+     * @param tap       true if the message is for a notification tap
+     * @return true if the message has been seen before so should be dropped
+     */
+    public static synchronized boolean isDuplicate(Context context, String messageId, boolean tap) {
+        if (maxSize == 0 || messageId == null) return false;
+
+        String key = tap ? messageId + "/tap" : messageId;
+        load(context);
+        // Access-ordered, so a lookup also refreshes the ID's position in the LRU
+        if (recentIds.get(key) != null) {
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Dropping duplicate message: " + key);
+            return true;
+        }
+        recentIds.put(key, Boolean.TRUE);
+        if (persist) {
+            save(context);
+        }
+        return false;
+    }
+
+    private static void load(Context context) {
+        if (recentIds != null) return;
+        recentIds = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+        if (!persist) return;
+
+        String saved = getSharedPreferences(context).getString(PREFERENCES_KEY, null);
+        if (saved == null) return;
+        try {
+            JSONArray ids = new JSONArray(saved);
+            for (int i = 0; i < ids.length(); i++) {
+                recentIds.put(ids.getString(i), Boolean.TRUE);
+            }
+        } catch (JSONException e) {
+            FirebasePluginLog.w(TAG, "Unable to restore recent message IDs: " + e.toString());
+        }
+    }
+
+    private static void save(Context context) {
+        JSONArray ids = new JSONArray();
+        for (String id : recentIds.keySet()) {
+            ids.put(id);
+        }
+        getSharedPreferences(context).edit().putString(PREFERENCES_KEY, ids.toString()).apply();
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE);
+    }
+}
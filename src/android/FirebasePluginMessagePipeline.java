@@ -0,0 +1,217 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import com.google.firebase.messaging.RemoteMessage;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Processes a message received by FirebasePluginMessagingService as a sequence of stages, each timed separately:
+ * - parse: parses the message into a FirebasePluginMessage (always first)
+ * - receivers: offers the message to any registered FirebasePluginMessageReceivers
+ * - deduplicate: drops messages which have already been received
+ * - prepare: drops messages with no content, allocates a notification ID and decides whether to show a notification
+ * - render: builds the notification to display, if the message should be shown as one, plus the summary of its group if grouped
+ * - display: posts the notification and group summary, subject to FirebasePluginNotificationRateLimiter
+ * - deliver: sends the message to JS (or queues it until JS is ready)
+ *
+ * A stage can stop processing of a message (e.g. because a receiver has handled it).
+ * Custom stages can be inserted before or after any of the built-in stages.
+ */
+public class FirebasePluginMessagePipeline {
+
+    public static final String PARSE = "parse";
+    public static final String RECEIVERS = "receivers";
+    public static final String DEDUPLICATE = "deduplicate";
+    public static final String PREPARE = "prepare";
+    public static final String RENDER = "render";
+    public static final String DISPLAY = "display";
+    public static final String DELIVER = "deliver";
+
+    /**
+     * A step in processing a received message.
+     */
+    public interface Stage {
+        /**
+         * @return true to continue processing the message, or false to stop
+         */
+        boolean process(Context context, FirebasePluginMessage message) throws Exception;
+    }
+
+    private static final StageMetrics parseMetrics = new StageMetrics(PARSE, null);
+    private static final FirebasePluginActionMetrics.Histogram totalLatency = new FirebasePluginActionMetrics.Histogram();
+    private static final CopyOnWriteArrayList<StageMetrics> stages = new CopyOnWriteArrayList<StageMetrics>();
+
+    static {
+        stages.add(new StageMetrics(RECEIVERS, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) {
+                if (FirebasePluginMessageReceiverManager.onMessageReceived(message.getRemoteMessage())) {
+                    FirebasePluginLog.d(FirebasePlugin.TAG, "Message was handled by a registered receiver");
+                    return false;
+                }
+                return true;
+            }
+        }));
+        stages.add(new StageMetrics(DEDUPLICATE, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) {
+                return !FirebasePluginMessageDeduplicator.isDuplicate(context, message.messageId, false);
+            }
+        }));
+        // After receivers, so they see every message and IDs are only allocated for messages the plugin handles itself
+        stages.add(new StageMetrics(PREPARE, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) {
+                return FirebasePluginMessagingService.prepareMessage(context, message);
+            }
+        }));
+        stages.add(new StageMetrics(RENDER, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) throws Exception {
+                if (message.showNotification) {
+                    FirebasePluginNotificationGroups.render(context, message);
+                }
+                return true;
+            }
+        }));
+        stages.add(new StageMetrics(DISPLAY, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) {
+                if (message.notification != null || message.groupSummary != null) {
+                    FirebasePluginNotificationRateLimiter.display(context, message);
+                }
+                return true;
+            }
+        }));
+        stages.add(new StageMetrics(DELIVER, new Stage() {
+            @Override
+            public boolean process(Context context, FirebasePluginMessage message) throws Exception {
+                FirebasePlugin.sendMessage(message, context.getApplicationContext());
+                return true;
+            }
+        }));
+    }
+
+    /**
+     * Inserts a custom stage before an existing stage.
+     *
+     * @param existing name of the stage to insert before
+     * @param name     name of the new stage, used to report its timings
+     */
+    public static synchronized void addStageBefore(String existing, String name, Stage stage) {
+        stages.add(indexOf(existing), new StageMetrics(name, stage));
+    }
+
+    /**
+     * Inserts a custom stage after an existing stage (or first if existing is "parse").
+     */
+    public static synchronized void addStageAfter(String existing, String name, Stage stage) {
+        int index = PARSE.equals(existing) ? 0 : indexOf(existing) + 1;
+        stages.add(index, new StageMetrics(name, stage));
+    }
+
+    public static synchronized void removeStage(String name) {
+        stages.remove(indexOf(name));
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < stages.size(); i++) {
+            if (stages.get(i).name.equals(name)) return i;
+        }
+        throw new IllegalArgumentException("No message pipeline stage named " + name);
+    }
+
+    public static void process(Context context, RemoteMessage remoteMessage) throws Exception {
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        try {
+            long stageStart = startNanos;
+            FirebasePluginMessage message = FirebasePluginMessage.parse(remoteMessage);
+            parseMetrics.record(stageStart, true, false);
+
+            boolean proceed;
+            for (StageMetrics stage : stages) {
+                stageStart = SystemClock.elapsedRealtimeNanos();
+                try {
+                    proceed = stage.stage.process(context, message);
+                } catch (Exception e) {
+                    stage.record(stageStart, false, true);
+                    throw e;
+                }
+                stage.record(stageStart, proceed, false);
+                if (!proceed) return;
+            }
+        } finally {
+            totalLatency.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+    }
+
+    public static JSONObject getStats() throws JSONException {
+        JSONArray stageStats = new JSONArray();
+        stageStats.put(parseMetrics.toJson());
+        for (StageMetrics stage : stages) {
+            stageStats.put(stage.toJson());
+        }
+        JSONObject stats = new JSONObject();
+        stats.put("bucketBoundsMs", FirebasePluginActionMetrics.getBucketBounds());
+        stats.put("stages", stageStats);
+        stats.put("total", totalLatency.toJson());
+        return stats;
+    }
+
+    public static void resetStats() {
+        parseMetrics.reset();
+        for (StageMetrics stage : stages) {
+            stage.reset();
+        }
+        totalLatency.reset();
+    }
+
+    private static class StageMetrics {
+        final String name;
+        final Stage stage;
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong stopped = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final FirebasePluginActionMetrics.Histogram latency = new FirebasePluginActionMetrics.Histogram();
+
+        StageMetrics(String name, Stage stage) {
+            this.name = name;
+            this.stage = stage;
+        }
+
+        void record(long startNanos, boolean proceeded, boolean error) {
+            calls.incrementAndGet();
+            if (error) {
+                errors.incrementAndGet();
+            } else if (!proceeded) {
+                stopped.incrementAndGet();
+            }
+            latency.record(SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+
+        void reset() {
+            calls.set(0);
+            stopped.set(0);
+            errors.set(0);
+            latency.reset();
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("name", name);
+            json.put("calls", calls.get());
+            json.put("stopped", stopped.get());
+            json.put("errors", errors.get());
+            json.put("latency", latency.toJson());
+            return json;
+        }
+    }
+}
@@ -4,12 +4,76 @@ import android.os.Bundle;
 
 import com.google.firebase.messaging.RemoteMessage;
 
+import java.util.Map;
+
 public abstract class FirebasePluginMessageReceiver {
 
+    private static final String TOPIC_PREFIX = "/topics/";
+
+    private final int priority;
+    private final String[] dataKeys;
+    private final String[] topics;
+
     public FirebasePluginMessageReceiver() {
+        this(0, null, null);
+    }
+
+    public FirebasePluginMessageReceiver(int priority) {
+        this(priority, null, null);
+    }
+
+    /**
+     * @param priority receivers with a higher priority are invoked first. Once a receiver handles a message, no further receivers are invoked.
+     * @param dataKeys (optional) only invoke this receiver for messages whose data payload contains at least one of these keys
+     * @param topics   (optional) only invoke this receiver for messages sent to one of these topics
+     */
+    public FirebasePluginMessageReceiver(int priority, String[] dataKeys, String[] topics) {
+        this.priority = priority;
+        this.dataKeys = dataKeys;
+        this.topics = topics;
         FirebasePluginMessageReceiverManager.register(this);
     }
 
+    public final int getPriority() {
+        return priority;
+    }
+
+    final boolean matches(RemoteMessage remoteMessage) {
+        return matchesTopic(remoteMessage.getFrom()) && matchesDataKeys(remoteMessage.getData());
+    }
+
+    /**
+     * @param data the message's data payload, or null if only the bundle is available,
+     *             in which case the bundle's keys are used, less those which the plugin adds for the message's fields
+     */
+    final boolean matches(Bundle bundle, Map<String, String> data) {
+        if (!matchesTopic(bundle.getString("from"))) return false;
+        if (data != null) return matchesDataKeys(data);
+        if (dataKeys == null) return true;
+        for (String key : dataKeys) {
+            if (bundle.containsKey(key) && !FirebasePluginMessage.isFieldKey(key)) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesDataKeys(Map<String, String> data) {
+        if (dataKeys == null) return true;
+        if (data == null) return false;
+        for (String key : dataKeys) {
+            if (data.containsKey(key)) return true;
+        }
+        return false;
+    }
+
+    private boolean matchesTopic(String from) {
+        if (topics == null) return true;
+        if (from == null || !from.startsWith(TOPIC_PREFIX)) return false;
+        for (String topic : topics) {
+            if (from.length() == TOPIC_PREFIX.length() + topic.length() && from.endsWith(topic)) return true;
+        }
+        return false;
+    }
+
     /**
      * Concrete subclasses should override this and return true if they handle the received message.
      *
@@ -4,38 +4,74 @@ import android.os.Bundle;
 
 import com.google.firebase.messaging.RemoteMessage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Map;
 
+/**
+ * Registry of custom message receivers, ordered by descending priority (then registration order).
+ * The registry is copy-on-write: registration replaces the array, so messages can be dispatched from any thread without locking.
+ * Dispatch stops at the first receiver to handle a message, and receivers are only invoked for messages matching their filters.
+ */
 public class FirebasePluginMessageReceiverManager {
 
-    private static List<FirebasePluginMessageReceiver> receivers = new ArrayList<FirebasePluginMessageReceiver>();
+    private static volatile FirebasePluginMessageReceiver[] receivers = new FirebasePluginMessageReceiver[0];
 
-    public static void register(FirebasePluginMessageReceiver receiver) {
-        receivers.add(receiver);
+    public static synchronized void register(FirebasePluginMessageReceiver receiver) {
+        FirebasePluginMessageReceiver[] current = receivers;
+        FirebasePluginMessageReceiver[] updated = new FirebasePluginMessageReceiver[current.length + 1];
+        int i = 0;
+        while (i < current.length && current[i].getPriority() >= receiver.getPriority()) {
+            updated[i] = current[i];
+            i++;
+        }
+        updated[i] = receiver;
+        System.arraycopy(current, i, updated, i + 1, current.length - i);
+        receivers = updated;
+    }
+
+    public static synchronized void unregister(FirebasePluginMessageReceiver receiver) {
+        FirebasePluginMessageReceiver[] current = receivers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == receiver) {
+                FirebasePluginMessageReceiver[] updated = new FirebasePluginMessageReceiver[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                receivers = updated;
+                return;
+            }
+        }
+    }
+
+    public static boolean hasReceivers() {
+        return receivers.length > 0;
     }
 
     public static boolean onMessageReceived(RemoteMessage remoteMessage) {
-        boolean handled = false;
         for (FirebasePluginMessageReceiver receiver : receivers) {
-            boolean wasHandled = receiver.onMessageReceived(remoteMessage);
-            if (wasHandled) {
-                handled = true;
+            if (receiver.matches(remoteMessage) && receiver.onMessageReceived(remoteMessage)) {
+                return true;
             }
         }
-
-        return handled;
+        return false;
     }
 
     public static boolean sendMessage(Bundle bundle) {
-            boolean handled = false;
-            for (FirebasePluginMessageReceiver receiver : receivers) {
-                boolean wasHandled = receiver.sendMessage(bundle);
-                if (wasHandled) {
-                    handled = true;
-                }
-            }
+        return sendMessage(bundle, null);
+    }
 
-            return handled;
+    /**
+     * Receivers are passed a copy of the bundle, since it may be the message's cached bundle, which is also queued.
+     *
+     * @param data (optional) the message's data payload, which receivers' data key filters are matched against
+     */
+    public static boolean sendMessage(Bundle bundle, Map<String, String> data) {
+        FirebasePluginMessageReceiver[] current = receivers;
+        if (current.length == 0) return false;
+        Bundle copy = new Bundle(bundle);
+        for (FirebasePluginMessageReceiver receiver : current) {
+            if (receiver.matches(bundle, data) && receiver.sendMessage(copy)) {
+                return true;
+            }
         }
+        return false;
+    }
 }
@@ -1,28 +1,23 @@
 package org.apache.cordova.firebase;
 
 import android.app.NotificationChannel;
-import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
-import android.content.Intent;
-import android.graphics.BitmapFactory;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
-import android.os.Bundle;
 import androidx.core.app.NotificationCompat;
-import android.util.Log;
 import android.app.Notification;
 import android.text.TextUtils;
-import android.content.ContentResolver;
 import android.graphics.Color;
 
 import com.google.firebase.crashlytics.FirebaseCrashlytics;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
-import java.util.Map;
-import java.util.Random;
+import org.json.JSONException;
+
+import java.util.List;
 
 public class FirebasePluginMessagingService extends FirebaseMessagingService {
 
@@ -41,7 +36,9 @@ public class FirebasePluginMessagingService extends FirebaseMessagingService {
     public void onNewToken(String refreshedToken) {
         try{
             super.onNewToken(refreshedToken);
-            Log.d(TAG, "Refreshed token: " + refreshedToken);
+            FirebasePluginLog.init(this);
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Refreshed token: " + refreshedToken);
+            FirebasePluginTokenCache.onNewToken(this, refreshedToken);
             FirebasePlugin.sendToken(refreshedToken);
         }catch (Exception e){
             FirebasePlugin.handleExceptionWithoutContext(e);
@@ -61,6 +58,8 @@ public class FirebasePluginMessagingService extends FirebaseMessagingService {
     @Override
     public void onMessageReceived(RemoteMessage remoteMessage) {
         try{
+            FirebasePluginLog.init(this);
+
             // [START_EXCLUDE]
             // There are two types of messages data messages and notification messages. Data messages are handled
             // here in onMessageReceived whether the app is in the foreground or background. Data messages are the type
@@ -71,278 +70,255 @@ public class FirebasePluginMessagingService extends FirebaseMessagingService {
             // messages. For more see: https://firebase.google.com/docs/cloud-messaging/concept-options
             // [END_EXCLUDE]
 
-            // Pass the message to the receiver manager so any registered receivers can decide to handle it
-            boolean wasHandled = FirebasePluginMessageReceiverManager.onMessageReceived(remoteMessage);
-            if (wasHandled) {
-                Log.d(TAG, "Message was handled by a registered receiver");
-
-                // Don't process the message in this method.
-                return;
-            }
-
             if(FirebasePlugin.applicationContext == null){
                 FirebasePlugin.applicationContext = this.getApplicationContext();
             }
 
             // TODO(developer): Handle FCM messages here.
             // Not getting messages here? See why this may be: https://goo.gl/39bRNJ
-            String messageType;
-            String title = null;
-            String body = null;
-            String id = null;
-            String sound = null;
-            String vibrate = null;
-            String light = null;
-            String color = null;
-            String icon = null;
-            String channelId = null;
-            String visibility = null;
-            String priority = null;
-            boolean foregroundNotification = false;
-
-            Map<String, String> data = remoteMessage.getData();
-
-            if (remoteMessage.getNotification() != null) {
-                // Notification message payload
-                Log.i(TAG, "Received message: notification");
-                messageType = "notification";
-                id = remoteMessage.getMessageId();
-                RemoteMessage.Notification notification = remoteMessage.getNotification();
-                title = notification.getTitle();
-                body = notification.getBody();
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                    channelId = notification.getChannelId();
-                }
-                sound = notification.getSound();
-                color = notification.getColor();
-                icon = notification.getIcon();
-            }else{
-                Log.i(TAG, "Received message: data");
-                messageType = "data";
-            }
-
-            if (data != null) {
-                // Data message payload
-                if(data.containsKey("notification_foreground")){
-                    foregroundNotification = true;
-                }
-                if(data.containsKey("notification_title")) title = data.get("notification_title");
-                if(data.containsKey("notification_body")) body = data.get("notification_body");
-                if(data.containsKey("notification_android_channel_id")) channelId = data.get("notification_android_channel_id");
-                if(data.containsKey("notification_android_id")) id = data.get("notification_android_id");
-                if(data.containsKey("notification_android_sound")) sound = data.get("notification_android_sound");
-                if(data.containsKey("notification_android_vibrate")) vibrate = data.get("notification_android_vibrate");
-                if(data.containsKey("notification_android_light")) light = data.get("notification_android_light"); //String containing hex ARGB color, miliseconds on, miliseconds off, example: '#FFFF00FF,1000,3000'
-                if(data.containsKey("notification_android_color")) color = data.get("notification_android_color");
-                if(data.containsKey("notification_android_icon")) icon = data.get("notification_android_icon");
-                if(data.containsKey("notification_android_visibility")) visibility = data.get("notification_android_visibility");
-                if(data.containsKey("notification_android_priority")) priority = data.get("notification_android_priority");
-            }
-
-            if (TextUtils.isEmpty(id)) {
-                Random rand = new Random();
-                int n = rand.nextInt(50) + 1;
-                id = Integer.toString(n);
-            }
-
-            Log.d(TAG, "From: " + remoteMessage.getFrom());
-            Log.d(TAG, "Id: " + id);
-            Log.d(TAG, "Title: " + title);
-            Log.d(TAG, "Body: " + body);
-            Log.d(TAG, "Sound: " + sound);
-            Log.d(TAG, "Vibrate: " + vibrate);
-            Log.d(TAG, "Light: " + light);
-            Log.d(TAG, "Color: " + color);
-            Log.d(TAG, "Icon: " + icon);
-            Log.d(TAG, "Channel Id: " + channelId);
-            Log.d(TAG, "Visibility: " + visibility);
-            Log.d(TAG, "Priority: " + priority);
-
-
-            if (!TextUtils.isEmpty(body) || !TextUtils.isEmpty(title) || (data != null && !data.isEmpty())) {
-                boolean showNotification = (FirebasePlugin.inBackground() || !FirebasePlugin.hasNotificationsCallback() || foregroundNotification) && (!TextUtils.isEmpty(body) || !TextUtils.isEmpty(title));
-                sendMessage(remoteMessage, data, messageType, id, title, body, showNotification, sound, vibrate, light, color, icon, channelId, priority, visibility);
-            }
+            FirebasePluginMessagePipeline.process(this, remoteMessage);
         }catch (Exception e){
             FirebasePlugin.handleExceptionWithoutContext(e);
         }
     }
 
-    private void sendMessage(RemoteMessage remoteMessage, Map<String, String> data, String messageType, String id, String title, String body, boolean showNotification, String sound, String vibrate, String light, String color, String icon, String channelId, String priority, String visibility) {
-        Log.d(TAG, "sendMessage(): messageType="+messageType+"; showNotification="+showNotification+"; id="+id+"; title="+title+"; body="+body+"; sound="+sound+"; vibrate="+vibrate+"; light="+light+"; color="+color+"; icon="+icon+"; channel="+channelId+"; data="+data.toString());
-        Bundle bundle = new Bundle();
-        for (String key : data.keySet()) {
-            bundle.putString(key, data.get(key));
+    /**
+     * Fills in defaults for a parsed message and decides whether to show a notification for it.
+     *
+     * @return false if the message has no content, so should be dropped
+     */
+    static boolean prepareMessage(Context context, FirebasePluginMessage message) {
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.INFO)) FirebasePluginLog.i(TAG, "Received message: " + message.messageType);
+
+        if (TextUtils.isEmpty(message.id)) {
+            message.notificationId = FirebasePluginNotificationIds.allocate(context);
+            message.id = Integer.toString(message.notificationId);
+        } else {
+            message.notificationId = message.id.hashCode();
         }
-        bundle.putString("messageType", messageType);
-        this.putKVInBundle("id", id, bundle);
-        this.putKVInBundle("title", title, bundle);
-        this.putKVInBundle("body", body, bundle);
-        this.putKVInBundle("sound", sound, bundle);
-        this.putKVInBundle("vibrate", vibrate, bundle);
-        this.putKVInBundle("light", light, bundle);
-        this.putKVInBundle("color", color, bundle);
-        this.putKVInBundle("icon", icon, bundle);
-        this.putKVInBundle("channel_id", channelId, bundle);
-        this.putKVInBundle("priority", priority, bundle);
-        this.putKVInBundle("visibility", visibility, bundle);
-        this.putKVInBundle("show_notification", String.valueOf(showNotification), bundle);
-        this.putKVInBundle("from", remoteMessage.getFrom(), bundle);
-        this.putKVInBundle("collapse_key", remoteMessage.getCollapseKey(), bundle);
-        this.putKVInBundle("sent_time", String.valueOf(remoteMessage.getSentTime()), bundle);
-        this.putKVInBundle("ttl", String.valueOf(remoteMessage.getTtl()), bundle);
-
-        if (showNotification) {
-            Intent intent = new Intent(this, OnNotificationOpenReceiver.class);
-            intent.putExtras(bundle);
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(this, id.hashCode(), intent, PendingIntent.FLAG_UPDATE_CURRENT);
-
-            // Channel
-            if(channelId == null || !FirebasePlugin.channelExists(channelId)){
-                channelId = FirebasePlugin.defaultChannelId;
-            }
-            if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
-                Log.d(TAG, "Channel ID: "+channelId);
-            }
 
-            NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(this, channelId);
-            notificationBuilder
-                    .setContentTitle(title)
-                    .setContentText(body)
-                    .setStyle(new NotificationCompat.BigTextStyle().bigText(body))
-                    .setAutoCancel(true)
-                    .setContentIntent(pendingIntent);
-
-            // On Android O+ the sound/lights/vibration are determined by the channel ID
-            if(Build.VERSION.SDK_INT < Build.VERSION_CODES.O){
-                // Sound
-                if (sound == null) {
-                    Log.d(TAG, "Sound: none");
-                }else if (sound.equals("default")) {
-                    notificationBuilder.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION));
-                    Log.d(TAG, "Sound: default");
-                }else{
-                    Uri soundPath = Uri.parse(ContentResolver.SCHEME_ANDROID_RESOURCE + "://" + getPackageName() + "/raw/" + sound);
-                    Log.d(TAG, "Sound: custom=" + sound+"; path="+soundPath.toString());
-                    notificationBuilder.setSound(soundPath);
-                }
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) {
+            FirebasePluginLog.d(TAG, "From: " + message.from);
+            FirebasePluginLog.d(TAG, "Id: " + message.id);
+            FirebasePluginLog.d(TAG, "Title: " + message.title);
+            FirebasePluginLog.d(TAG, "Body: " + message.body);
+            FirebasePluginLog.d(TAG, "Sound: " + message.sound);
+            FirebasePluginLog.d(TAG, "Vibrate: " + message.vibrate);
+            FirebasePluginLog.d(TAG, "Light: " + message.light);
+            FirebasePluginLog.d(TAG, "Color: " + message.color);
+            FirebasePluginLog.d(TAG, "Icon: " + message.icon);
+            FirebasePluginLog.d(TAG, "Channel Id: " + message.channelId);
+            FirebasePluginLog.d(TAG, "Visibility: " + message.visibility);
+            FirebasePluginLog.d(TAG, "Priority: " + message.priority);
+        }
 
-                // Light
-                if (light != null) {
-                    try {
-                        String[] lightsComponents = color.replaceAll("\\s", "").split(",");
-                        if (lightsComponents.length == 3) {
-                            int lightArgb = Color.parseColor(lightsComponents[0]);
-                            int lightOnMs = Integer.parseInt(lightsComponents[1]);
-                            int lightOffMs = Integer.parseInt(lightsComponents[2]);
-                            notificationBuilder.setLights(lightArgb, lightOnMs, lightOffMs);
-                            Log.d(TAG, "Lights: color="+lightsComponents[0]+"; on(ms)="+lightsComponents[2]+"; off(ms)="+lightsComponents[3]);
-                        }
-
-                    } catch (Exception e) {}
-                }
+        boolean hasContent = !TextUtils.isEmpty(message.body) || !TextUtils.isEmpty(message.title);
+        if (!hasContent && !message.hasData()) return false;
+        message.showNotification = (FirebasePlugin.inBackground() || !FirebasePlugin.hasNotificationsCallback() || message.foregroundNotification) && hasContent;
+        return true;
+    }
 
-                // Vibrate
-                if (vibrate != null){
-                    try {
-                        String[] sVibrations = vibrate.replaceAll("\\s", "").split(",");
-                        long[] lVibrations = new long[sVibrations.length];
-                        int i=0;
-                        for(String sVibration: sVibrations){
-                            lVibrations[i] = Integer.parseInt(sVibration.trim());
-                            i++;
-                        }
-                        notificationBuilder.setVibrate(lVibrations);
-                        Log.d(TAG, "Vibrate: "+vibrate);
-                    } catch (Exception e) {
-                        Log.e(TAG, e.getMessage());
-                    }
-                }
-            }
+    /**
+     * Builds the notification to display for a message.
+     */
+    static Notification renderNotification(Context context, FirebasePluginMessage message) throws JSONException {
+        String id = message.id;
+        String title = message.title;
+        String body = message.body;
+        String sound = message.sound;
+        String vibrate = message.vibrate;
+        String light = message.light;
+        String color = message.color;
+        String icon = message.icon;
+        String channelId = message.channelId;
+        String priority = message.priority;
+        String visibility = message.visibility;
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "renderNotification(): messageType="+message.messageType+"; id="+id+"; title="+title+"; body="+body+"; sound="+sound+"; vibrate="+vibrate+"; light="+light+"; color="+color+"; icon="+icon+"; channel="+channelId);
+
+        PendingIntent pendingIntent = OnNotificationOpenReceiver.createPendingIntent(context, message.toBundle(), message.notificationId);
+
+        // Channel
+        channelId = resolveChannelId(channelId);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.O){
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Channel ID: "+channelId);
+        }
 
+        NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(context, channelId);
+        notificationBuilder
+                .setContentTitle(title)
+                .setContentText(body)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(body))
+                .setAutoCancel(true)
+                .setContentIntent(pendingIntent);
+        if (message.groupKey != null) {
+            notificationBuilder.setGroup(message.groupKey);
+        }
 
-            // Icon
-            int defaultSmallIconResID = getResources().getIdentifier(defaultSmallIconName, "drawable", getPackageName());
-            int customSmallIconResID = 0;
-            if(icon != null){
-                customSmallIconResID = getResources().getIdentifier(icon, "drawable", getPackageName());
+        // On Android O+ the sound/lights/vibration are determined by the channel ID
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.O){
+            // Sound
+            if (sound == null) {
+                FirebasePluginLog.d(TAG, "Sound: none");
+            }else if (sound.equals("default")) {
+                notificationBuilder.setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION));
+                FirebasePluginLog.d(TAG, "Sound: default");
+            }else{
+                Uri soundPath = FirebasePluginResources.getSoundUri(context, sound);
+                if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Sound: custom=" + sound+"; path="+soundPath.toString());
+                notificationBuilder.setSound(soundPath);
             }
 
-            if (customSmallIconResID != 0) {
-                notificationBuilder.setSmallIcon(customSmallIconResID);
-                Log.d(TAG, "Small icon: custom="+icon);
-            }else if (defaultSmallIconResID != 0) {
-                Log.d(TAG, "Small icon: default="+defaultSmallIconName);
-                notificationBuilder.setSmallIcon(defaultSmallIconResID);
-            } else {
-                Log.d(TAG, "Small icon: application");
-                notificationBuilder.setSmallIcon(getApplicationInfo().icon);
+            // Light
+            if (light != null) {
+                try {
+                    String[] lightsComponents = color.replaceAll("\\s", "").split(",");
+                    if (lightsComponents.length == 3) {
+                        int lightArgb = Color.parseColor(lightsComponents[0]);
+                        int lightOnMs = Integer.parseInt(lightsComponents[1]);
+                        int lightOffMs = Integer.parseInt(lightsComponents[2]);
+                        notificationBuilder.setLights(lightArgb, lightOnMs, lightOffMs);
+                        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Lights: color="+lightsComponents[0]+"; on(ms)="+lightsComponents[2]+"; off(ms)="+lightsComponents[3]);
+                    }
+
+                } catch (Exception e) {}
             }
 
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
-                int defaultLargeIconResID = getResources().getIdentifier(defaultLargeIconName, "drawable", getPackageName());
-                int customLargeIconResID = 0;
-                if(icon != null){
-                    customLargeIconResID = getResources().getIdentifier(icon+"_large", "drawable", getPackageName());
+            // Vibrate
+            if (vibrate != null){
+                try {
+                    String[] sVibrations = vibrate.replaceAll("\\s", "").split(",");
+                    long[] lVibrations = new long[sVibrations.length];
+                    int i=0;
+                    for(String sVibration: sVibrations){
+                        lVibrations[i] = Integer.parseInt(sVibration.trim());
+                        i++;
+                    }
+                    notificationBuilder.setVibrate(lVibrations);
+                    if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Vibrate: "+vibrate);
+                } catch (Exception e) {
+                    FirebasePluginLog.e(TAG, e.getMessage());
                 }
+            }
+        }
 
-                int largeIconResID;
-                if (customLargeIconResID != 0 || defaultLargeIconResID != 0) {
-					if (customLargeIconResID != 0) {
-	                    largeIconResID = customLargeIconResID;
-	                    Log.d(TAG, "Large icon: custom="+icon);
-	                }else{
-	                    Log.d(TAG, "Large icon: default="+defaultLargeIconName);
-	                    largeIconResID = defaultLargeIconResID;
-	                }
-	                notificationBuilder.setLargeIcon(BitmapFactory.decodeResource(getApplicationContext().getResources(), largeIconResID));
-                }
+
+        // Icon
+        notificationBuilder.setSmallIcon(resolveSmallIcon(context, icon));
+
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
+            int defaultLargeIconResID = FirebasePluginResources.getIdentifier(context, defaultLargeIconName, "drawable");
+            int customLargeIconResID = 0;
+            if(icon != null){
+                customLargeIconResID = FirebasePluginResources.getIdentifier(context, icon+"_large", "drawable");
             }
 
-            // Color
-            if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
-                int defaultColor = getResources().getColor(getResources().getIdentifier("accent", "color", getPackageName()), null);
-                if(color != null){
-                    notificationBuilder.setColor(Color.parseColor(color));
-                    Log.d(TAG, "Color: custom="+color);
+            int largeIconResID;
+            if (customLargeIconResID != 0 || defaultLargeIconResID != 0) {
+                if (customLargeIconResID != 0) {
+                    largeIconResID = customLargeIconResID;
+                    if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Large icon: custom="+icon);
                 }else{
-                    Log.d(TAG, "Color: default");
-                    notificationBuilder.setColor(defaultColor);
+                    if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Large icon: default="+defaultLargeIconName);
+                    largeIconResID = defaultLargeIconResID;
                 }
+                notificationBuilder.setLargeIcon(FirebasePluginBitmapCache.getLargeIcon(context.getApplicationContext(), largeIconResID));
             }
+        }
 
-            // Visibility
-            int iVisibility = NotificationCompat.VISIBILITY_PUBLIC;
-            if(visibility != null){
-                iVisibility = Integer.parseInt(visibility);
+        // Color
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
+            int defaultColor = context.getResources().getColor(FirebasePluginResources.getIdentifier(context, "accent", "color"), null);
+            if(color != null){
+                notificationBuilder.setColor(Color.parseColor(color));
+                if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Color: custom="+color);
+            }else{
+                FirebasePluginLog.d(TAG, "Color: default");
+                notificationBuilder.setColor(defaultColor);
             }
-            Log.d(TAG, "Visibility: " + iVisibility);
-            notificationBuilder.setVisibility(iVisibility);
+        }
 
-            // Priority
-            int iPriority = NotificationCompat.PRIORITY_MAX;
-            if(priority != null){
-                iPriority = Integer.parseInt(priority);
-            }
-            Log.d(TAG, "Priority: " + iPriority);
-            notificationBuilder.setPriority(iPriority);
+        // Visibility
+        int iVisibility = NotificationCompat.VISIBILITY_PUBLIC;
+        if(visibility != null){
+            iVisibility = Integer.parseInt(visibility);
+        }
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Visibility: " + iVisibility);
+        notificationBuilder.setVisibility(iVisibility);
+
+        // Priority
+        int iPriority = NotificationCompat.PRIORITY_MAX;
+        if(priority != null){
+            iPriority = Integer.parseInt(priority);
+        }
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Priority: " + iPriority);
+        notificationBuilder.setPriority(iPriority);
 
 
-            // Build notification
-            Notification notification = notificationBuilder.build();
+        // Build notification
+        return notificationBuilder.build();
+    }
 
-            // Display notification
-            NotificationManager notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-            Log.d(TAG, "show notification: "+notification.toString());
-            notificationManager.notify(id.hashCode(), notification);
+    /**
+     * Builds the InboxStyle summary of a notification group, listing its most recent messages.
+     * Tapping the summary opens the most recent message. The summary itself never alerts: only the group's child notifications do.
+     */
+    static Notification renderGroupSummary(Context context, FirebasePluginMessage message, int summaryId, List<String> lines, int count) throws JSONException {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        for (String line : lines) {
+            style.addLine(line);
+        }
+        if (count > lines.size()) {
+            style.setSummaryText("+" + (count - lines.size()) + " more");
         }
-        // Send to plugin
-        FirebasePlugin.sendMessage(bundle, this.getApplicationContext());
+        String title = count + " new messages";
+        style.setBigContentTitle(title);
+
+        NotificationCompat.Builder notificationBuilder = new NotificationCompat.Builder(context, resolveChannelId(message.channelId));
+        notificationBuilder
+                .setContentTitle(title)
+                .setContentText(lines.get(lines.size() - 1))
+                .setStyle(style)
+                .setSmallIcon(resolveSmallIcon(context, message.icon))
+                .setNumber(count)
+                .setGroup(message.groupKey)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .setOnlyAlertOnce(true)
+                .setAutoCancel(true)
+                .setContentIntent(OnNotificationOpenReceiver.createPendingIntent(context, message.toBundle(), summaryId));
+        return notificationBuilder.build();
     }
 
-    private void putKVInBundle(String k, String v, Bundle b){
-        if(v != null && !b.containsKey(k)){
-            b.putString(k, v);
+    /**
+     * @return the channel ID, or the default channel if the channel is unspecified or doesn't exist
+     */
+    private static String resolveChannelId(String channelId) throws JSONException {
+        if(channelId == null || !FirebasePlugin.channelExists(channelId)){
+            channelId = FirebasePlugin.defaultChannelId;
+            // The default channel is created on first use of messaging so may not exist yet if the plugin is lazily initialized
+            if(channelId != null && !FirebasePlugin.channelExists(channelId)){
+                FirebasePlugin.createDefaultChannel();
+            }
+        }
+        return channelId;
+    }
+
+    private static int resolveSmallIcon(Context context, String icon) {
+        int customSmallIconResID = 0;
+        if(icon != null){
+            customSmallIconResID = FirebasePluginResources.getIdentifier(context, icon, "drawable");
+        }
+        if (customSmallIconResID != 0) {
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Small icon: custom="+icon);
+            return customSmallIconResID;
+        }
+
+        int defaultSmallIconResID = FirebasePluginResources.getIdentifier(context, defaultSmallIconName, "drawable");
+        if (defaultSmallIconResID != 0) {
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Small icon: default="+defaultSmallIconName);
+            return defaultSmallIconResID;
         }
+        FirebasePluginLog.d(TAG, "Small icon: application");
+        return context.getApplicationInfo().icon;
     }
 }
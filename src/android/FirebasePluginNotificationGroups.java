@@ -0,0 +1,193 @@
+package org.apache.cordova.firebase;
+
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import android.text.TextUtils;
+
+import org.apache.cordova.CordovaPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optionally groups displayed notifications by channel or by collapse_key, so a burst of messages renders as a few updated
+ * notifications rather than one post per message:
+ * <preference name="FirebasePluginNotificationGroupBy" value="channel" /> (none, channel or collapse_key; default none)
+ * <preference name="FirebasePluginNotificationGroupMaxChildren" value="5" /> (at least 1)
+ *
+ * Once a group has two messages, an InboxStyle summary listing its most recent messages is posted. Only the first few messages
+ * of a group are posted as notifications of their own; after that, further messages just update the summary.
+ * Group state is reset once the user dismisses the summary. Active notifications can't be read before Android 6.0 (API 23),
+ * so there a group is only reset when the app clears all its notifications.
+ *
+ * The preferences are persisted so that they also apply when messages are received while the app isn't running.
+ */
+public class FirebasePluginNotificationGroups {
+
+    public static final String NONE = "none";
+    public static final String CHANNEL = "channel";
+    public static final String COLLAPSE_KEY = "collapse_key";
+
+    private static final String TAG = "FirebasePlugin";
+    private static final String PREFERENCES_GROUP_BY = "notificationGroupBy";
+    private static final String PREFERENCES_MAX_CHILDREN = "notificationGroupMaxChildren";
+    private static final String GROUP_KEY_PREFIX = "firebase_plugin_";
+    private static final int DEFAULT_MAX_CHILDREN = 5;
+    // Most devices show at most this many lines of an InboxStyle notification
+    private static final int MAX_LINES = 5;
+    // How long a group's summary is assumed to still be shown after checking, so a burst of messages doesn't check for each one
+    private static final long ACTIVE_CHECK_INTERVAL_MS = 1000;
+
+    private static String groupBy = null;
+    private static int maxChildren = DEFAULT_MAX_CHILDREN;
+    private static final Map<String, Group> groups = new HashMap<String, Group>();
+
+    private static class Group {
+        final String key;
+        final int summaryId;
+        final LinkedList<String> lines = new LinkedList<String>();
+        int count = 0;
+        int children = 0;
+        long activeCheckedAt = 0;
+
+        Group(String key) {
+            this.key = key;
+            // Derived from the key rather than allocated, so a summary left over from a previous process is updated rather than duplicated
+            this.summaryId = ("summary:" + key).hashCode();
+        }
+    }
+
+    public static synchronized void configure(Context context, CordovaPreferences preferences) {
+        groupBy = parseGroupBy(preferences.getString("FirebasePluginNotificationGroupBy", NONE));
+        maxChildren = Math.max(1, preferences.getInteger("FirebasePluginNotificationGroupMaxChildren", DEFAULT_MAX_CHILDREN));
+        getSharedPreferences(context).edit()
+                .putString(PREFERENCES_GROUP_BY, groupBy)
+                .putInt(PREFERENCES_MAX_CHILDREN, maxChildren)
+                .apply();
+    }
+
+    private static void load(Context context) {
+        if (groupBy != null) return;
+        SharedPreferences settings = getSharedPreferences(context);
+        groupBy = parseGroupBy(settings.getString(PREFERENCES_GROUP_BY, NONE));
+        maxChildren = Math.max(1, settings.getInt(PREFERENCES_MAX_CHILDREN, DEFAULT_MAX_CHILDREN));
+    }
+
+    private static String parseGroupBy(String value) {
+        if (CHANNEL.equals(value) || COLLAPSE_KEY.equals(value)) return value;
+        if (value != null && !NONE.equals(value)) {
+            FirebasePluginLog.w(TAG, "Unknown notification grouping: " + value);
+        }
+        return NONE;
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Renders the notification for a message, plus the summary of its group if it's grouped.
+     * Sets message.notification (unless the group already has its maximum number of child notifications),
+     * message.groupSummary and message.groupSummaryId.
+     */
+    static void render(Context context, FirebasePluginMessage message) throws Exception {
+        Group group;
+        List<String> lines = null;
+        int count = 0;
+        boolean postChild = true;
+        synchronized (FirebasePluginNotificationGroups.class) {
+            group = getGroup(context, message);
+            if (group != null) {
+                message.groupKey = group.key;
+                group.count++;
+                group.lines.addLast(getLine(message));
+                if (group.lines.size() > MAX_LINES) {
+                    group.lines.removeFirst();
+                }
+                postChild = group.children < maxChildren;
+                if (postChild) {
+                    group.children++;
+                }
+                if (group.count > 1) {
+                    lines = new ArrayList<String>(group.lines);
+                    count = group.count;
+                }
+            }
+        }
+
+        if (postChild) {
+            message.notification = FirebasePluginMessagingService.renderNotification(context, message);
+        } else if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) {
+            FirebasePluginLog.d(TAG, "Notification group " + group.key + " is full: updating summary only");
+        }
+        if (lines != null) {
+            message.groupSummaryId = group.summaryId;
+            message.groupSummary = FirebasePluginMessagingService.renderGroupSummary(context, message, group.summaryId, lines, count);
+        }
+    }
+
+    private static Group getGroup(Context context, FirebasePluginMessage message) {
+        load(context);
+        String key;
+        if (CHANNEL.equals(groupBy)) {
+            key = message.channelId != null ? message.channelId : FirebasePlugin.defaultChannelId;
+        } else if (COLLAPSE_KEY.equals(groupBy)) {
+            key = message.collapseKey;
+        } else {
+            return null;
+        }
+        if (TextUtils.isEmpty(key)) return null;
+
+        key = GROUP_KEY_PREFIX + groupBy + "_" + key;
+        Group group = groups.get(key);
+        if (group == null) {
+            group = new Group(key);
+            groups.put(key, group);
+        } else if (group.count > 1 && !isActive(context, group)) {
+            // The user has dismissed the summary (and with it the group's notifications), so start afresh
+            group = new Group(key);
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    /**
+     * @return true if the group's summary is still shown. Reading active notifications is an IPC to the system,
+     * so the result is reused for ACTIVE_CHECK_INTERVAL_MS after a positive check.
+     */
+    private static boolean isActive(Context context, Group group) {
+        // Can't tell before API 23, so assume the summary is still shown
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return true;
+        long now = SystemClock.elapsedRealtime();
+        if (group.activeCheckedAt > 0 && now - group.activeCheckedAt < ACTIVE_CHECK_INTERVAL_MS) return true;
+
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        for (StatusBarNotification notification : notificationManager.getActiveNotifications()) {
+            if (notification.getId() == group.summaryId && notification.getTag() == null) {
+                group.activeCheckedAt = now;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getLine(FirebasePluginMessage message) {
+        if (TextUtils.isEmpty(message.title)) return message.body;
+        if (TextUtils.isEmpty(message.body)) return message.title;
+        return message.title + ": " + message.body;
+    }
+
+    /**
+     * Forgets all group state, e.g. after the app has cancelled all its notifications.
+     */
+    public static synchronized void clear() {
+        groups.clear();
+    }
+}
@@ -0,0 +1,35 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Allocates native notification IDs for messages which don't specify their own, so notifications don't overwrite each other.
+ * IDs are unique across app restarts: they're reserved from SharedPreferences in blocks, so allocation only touches storage
+ * once per block. Allocated IDs start at 0x40000000 and wrap around once the int range is exhausted.
+ * Messages which do specify an ID use its hash code, which can fall anywhere in the int range, so may coincide with an
+ * allocated ID; this is no more likely than two message-supplied IDs colliding.
+ */
+public class FirebasePluginNotificationIds {
+
+    private static final String PREFERENCES_KEY = "nextNotificationIdBlock";
+    private static final int FIRST_ID = 0x40000000;
+    private static final int BLOCK_SIZE = 1000;
+
+    private static int next = 0;
+    private static int blockEnd = 0;
+
+    public static synchronized int allocate(Context context) {
+        if (next >= blockEnd) {
+            SharedPreferences settings = context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE);
+            int blockStart = settings.getInt(PREFERENCES_KEY, FIRST_ID);
+            if (blockStart < FIRST_ID || blockStart > Integer.MAX_VALUE - BLOCK_SIZE) {
+                blockStart = FIRST_ID;
+            }
+            next = blockStart;
+            blockEnd = blockStart + BLOCK_SIZE;
+            settings.edit().putInt(PREFERENCES_KEY, blockEnd).apply();
+        }
+        return next++;
+    }
+}
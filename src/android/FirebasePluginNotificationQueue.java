@@ -0,0 +1,335 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.AtomicFile;
+
+import org.apache.cordova.CordovaPreferences;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Messages received while no onMessageReceived() callback is registered, held until Javascript registers one.
+ * So that messages aren't lost if the process dies before the WebView attaches (e.g. during a cold start), each one is
+ * also appended to a journal file in the app's private storage, from which the queue is restored when the process restarts.
+ *
+ * The journal is a sequence of JSON records, one per line:
+ * - {"seq":n,"message":{...}} - a queued message
+ * - {"ack":n} - all messages up to and including sequence number n have been delivered
+ * Records are appended to the journal as a plain file. It's rewritten to contain only the undelivered messages once it
+ * holds too many stale records, via an AtomicFile so that the old journal is kept as a backup until the new one is
+ * complete; the backup is restored when the journal is next loaded if the process dies mid-rewrite.
+ *
+ * The number of messages held is bounded, dropping the oldest once full, and can be overridden via a config.xml preference:
+ * <preference name="FirebasePluginNotificationQueueSize" value="100" />
+ *
+ * All methods are synchronized since messages are queued from the messaging service, notification open receiver and activity.
+ */
+public class FirebasePluginNotificationQueue {
+
+    private static final String TAG = "FirebasePlugin";
+    private static final String JOURNAL_FILE = "firebase_plugin_notifications.journal";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int DEFAULT_MAX_SIZE = 100;
+
+    private static int maxSize = DEFAULT_MAX_SIZE;
+
+    // Restored from the journal on first use
+    private static LinkedList<Entry> entries = null;
+    private static File journal = null;
+    // Where AtomicFile keeps the previous journal while compacting
+    private static File journalBackup = null;
+    private static long nextSeq = 1;
+    // Records in the journal which no longer describe a queued message
+    private static int staleRecords = 0;
+
+    public static synchronized void configure(CordovaPreferences preferences) {
+        maxSize = Math.max(1, preferences.getInteger("FirebasePluginNotificationQueueSize", DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Queues a message and appends it to the journal.
+     */
+    public static synchronized void add(Context context, Bundle bundle) {
+        load(context);
+        Entry entry = new Entry(nextSeq++, bundle);
+        entries.add(entry);
+        while (entries.size() > maxSize) {
+            Entry dropped = entries.removeFirst();
+            FirebasePluginLog.w(TAG, "Notification queue full - dropping oldest message");
+            // The ack record written below hides the dropped message from the journal
+            appendRecord(ackRecord(dropped.seq));
+            staleRecords += 2;
+        }
+        try {
+            appendRecord(entry.toRecord());
+        } catch (JSONException e) {
+            FirebasePluginLog.e(TAG, "Unable to journal queued message: " + e.toString());
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes and returns all queued messages, oldest first.
+     */
+    public static synchronized List<Bundle> drain(Context context) {
+        load(context);
+        List<Bundle> bundles = new ArrayList<Bundle>(entries.size());
+        if (entries.isEmpty()) return bundles;
+
+        for (Entry entry : entries) {
+            bundles.add(entry.bundle);
+        }
+        entries.clear();
+        // Nothing left to keep, so start a fresh journal rather than appending an ack
+        deleteJournal();
+        return bundles;
+    }
+
+    /**
+     * Returns a page of queued messages, for Javascript to handle a backlog of messages in one pass rather than one callback per message.
+     * Messages on a page stay queued until the next page is requested with the returned cursor (so a page which isn't handled,
+     * e.g. because the WebView is reloaded, is delivered again) except for the final page, which is removed once returned.
+     *
+     * @param cursor   cursor returned with the previous page, or 0 to start from the oldest message
+     * @param pageSize maximum number of messages to return, or 0 for all of them
+     * @return {messages: [...], cursor: string} where cursor is absent if there are no more messages
+     */
+    public static synchronized JSONObject getPage(Context context, long cursor, int pageSize) throws JSONException {
+        load(context);
+        if (cursor > 0) {
+            acknowledge(cursor);
+        }
+
+        JSONArray messages = new JSONArray();
+        Iterator<Entry> iterator = entries.iterator();
+        long lastSeq = 0;
+        while (iterator.hasNext() && (pageSize <= 0 || messages.length() < pageSize)) {
+            Entry entry = iterator.next();
+            messages.put(entry.toMessage());
+            lastSeq = entry.seq;
+        }
+
+        JSONObject page = new JSONObject();
+        page.put("messages", messages);
+        if (iterator.hasNext()) {
+            page.put("cursor", String.valueOf(lastSeq));
+        } else if (lastSeq > 0) {
+            acknowledge(lastSeq);
+        }
+        return page;
+    }
+
+    public static synchronized int size(Context context) {
+        load(context);
+        return entries.size();
+    }
+
+    /**
+     * Removes messages up to and including the given sequence number.
+     */
+    private static void acknowledge(long seq) {
+        Iterator<Entry> iterator = entries.iterator();
+        int removed = 0;
+        while (iterator.hasNext() && iterator.next().seq <= seq) {
+            iterator.remove();
+            removed++;
+        }
+        if (removed == 0) return;
+
+        if (entries.isEmpty()) {
+            deleteJournal();
+        } else {
+            appendRecord(ackRecord(seq));
+            staleRecords += removed + 1;
+            compactIfNeeded();
+        }
+    }
+
+    private static void load(Context context) {
+        if (entries != null) return;
+        entries = new LinkedList<Entry>();
+        journal = new File(context.getApplicationContext().getFilesDir(), JOURNAL_FILE);
+        journalBackup = new File(journal.getPath() + ".bak");
+        if (journalBackup.exists()) {
+            // A compaction didn't complete, so the journal may be partly written: the backup holds all of its records
+            journal.delete();
+            if (!journalBackup.renameTo(journal)) {
+                FirebasePluginLog.e(TAG, "Unable to restore notification journal backup");
+            }
+        }
+        if (!journal.exists()) return;
+
+        int records = 0;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(journal), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                records++;
+                try {
+                    JSONObject record = new JSONObject(line);
+                    if (record.has("ack")) {
+                        long ack = record.getLong("ack");
+                        Iterator<Entry> iterator = entries.iterator();
+                        while (iterator.hasNext() && iterator.next().seq <= ack) {
+                            iterator.remove();
+                        }
+                        nextSeq = Math.max(nextSeq, ack + 1);
+                    } else {
+                        Entry entry = Entry.fromRecord(record);
+                        entries.add(entry);
+                        nextSeq = Math.max(nextSeq, entry.seq + 1);
+                    }
+                } catch (JSONException e) {
+                    // Most likely a partial record written as the process died
+                    FirebasePluginLog.w(TAG, "Skipping corrupt notification journal record");
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return;
+        } catch (IOException e) {
+            FirebasePluginLog.e(TAG, "Unable to read notification journal: " + e.toString());
+        } finally {
+            closeQuietly(reader);
+        }
+
+        if (entries.size() > maxSize) {
+            long trimmedSeq = 0;
+            while (entries.size() > maxSize) {
+                trimmedSeq = entries.removeFirst().seq;
+            }
+            // As in add(), so the trimmed messages aren't restored again if the process dies before the journal is compacted
+            appendRecord(ackRecord(trimmedSeq));
+            records++;
+        }
+        staleRecords = records - entries.size();
+        compactIfNeeded();
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Restored " + entries.size() + " queued messages from notification journal");
+    }
+
+    private static void appendRecord(JSONObject record) {
+        FileOutputStream out = null;
+        try {
+            // Appending doesn't fsync: the aim is to survive the process dying rather than the device losing power
+            out = new FileOutputStream(journal, true);
+            out.write((record.toString() + "\n").getBytes(UTF_8));
+        } catch (IOException e) {
+            FirebasePluginLog.e(TAG, "Unable to write to notification journal: " + e.toString());
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    /**
+     * Rewrites the journal to contain only queued messages once most of its records are stale.
+     */
+    private static void compactIfNeeded() {
+        if (staleRecords < maxSize || staleRecords < entries.size()) return;
+
+        AtomicFile file = new AtomicFile(journal);
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            for (Entry entry : entries) {
+                out.write((entry.toRecord().toString() + "\n").getBytes(UTF_8));
+            }
+            file.finishWrite(out);
+            staleRecords = 0;
+        } catch (Exception e) {
+            FirebasePluginLog.e(TAG, "Unable to compact notification journal: " + e.toString());
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+
+    private static void deleteJournal() {
+        journal.delete();
+        journalBackup.delete();
+        staleRecords = 0;
+    }
+
+    private static JSONObject ackRecord(long seq) {
+        JSONObject record = new JSONObject();
+        try {
+            record.put("ack", seq);
+        } catch (JSONException e) {
+            // Not possible for a numeric value
+        }
+        return record;
+    }
+
+    private static void closeQuietly(Closeable stream) {
+        if (stream == null) return;
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static class Entry {
+        final long seq;
+        final Bundle bundle;
+
+        Entry(long seq, Bundle bundle) {
+            this.seq = seq;
+            this.bundle = bundle;
+        }
+
+        JSONObject toMessage() throws JSONException {
+            JSONObject message = new JSONObject();
+            for (String key : bundle.keySet()) {
+                message.put(key, bundle.get(key));
+            }
+            return message;
+        }
+
+        JSONObject toRecord() throws JSONException {
+            JSONObject record = new JSONObject();
+            record.put("seq", seq);
+            record.put("message", toMessage());
+            return record;
+        }
+
+        static Entry fromRecord(JSONObject record) throws JSONException {
+            JSONObject message = record.getJSONObject("message");
+            Bundle bundle = new Bundle();
+            Iterator<String> keys = message.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                Object value = message.get(key);
+                if (value instanceof Boolean) {
+                    bundle.putBoolean(key, (Boolean) value);
+                } else if (value instanceof Integer) {
+                    bundle.putInt(key, (Integer) value);
+                } else if (value instanceof Long) {
+                    bundle.putLong(key, (Long) value);
+                } else if (value instanceof Double) {
+                    bundle.putDouble(key, (Double) value);
+                } else if (value != JSONObject.NULL) {
+                    bundle.putString(key, value.toString());
+                }
+            }
+            return new Entry(record.getLong("seq"), bundle);
+        }
+    }
+}
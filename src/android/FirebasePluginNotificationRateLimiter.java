@@ -0,0 +1,279 @@
+package org.apache.cordova.firebase;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import org.apache.cordova.CordovaPreferences;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Limits the rate at which notifications are displayed, using a token bucket per notification channel.
+ * Android silently drops notifications posted by an app faster than it allows, so a burst of messages is better
+ * smoothed out (or thinned) by the plugin:
+ * <preference name="FirebasePluginNotificationRateLimit" value="60" /> (notifications per minute per channel; default 0: unlimited)
+ * <preference name="FirebasePluginNotificationRateBurst" value="5" /> (notifications which may be displayed at once)
+ * <preference name="FirebasePluginNotificationRatePolicy" value="merge" /> (defer, merge or drop; default defer)
+ *
+ * Once a channel's bucket is empty, further notifications are:
+ * - defer: queued, and displayed in order as the bucket refills
+ * - merge: queued, but each replaces the one before it, so only the most recent is displayed once the bucket refills.
+ *   The group summaries of replaced notifications are discarded with them: only the summary rendered with the most recent
+ *   notification is displayed, which (like any summary) also lists grouped messages whose own notifications weren't shown.
+ * - drop: discarded
+ * Messages are still delivered to JS whatever happens to their notification. Deferred notifications are held in memory,
+ * so are lost if the app process is killed before they're displayed.
+ *
+ * The preferences are persisted so that they also apply when messages are received while the app isn't running.
+ */
+public class FirebasePluginNotificationRateLimiter {
+
+    public static final String DEFER = "defer";
+    public static final String MERGE = "merge";
+    public static final String DROP = "drop";
+
+    private static final String TAG = "FirebasePlugin";
+    private static final String PREFERENCES_RATE = "notificationRateLimit";
+    private static final String PREFERENCES_BURST = "notificationRateBurst";
+    private static final String PREFERENCES_POLICY = "notificationRatePolicy";
+    private static final int DEFAULT_BURST = 5;
+    // Per channel: beyond this, the oldest deferred notification is dropped
+    private static final int MAX_PENDING = 100;
+
+    private static String policy = null;
+    private static int ratePerMinute = 0;
+    private static int burst = DEFAULT_BURST;
+    private static final Map<String, Bucket> buckets = new HashMap<String, Bucket>();
+    private static Handler handler = null;
+
+    private static long posted = 0;
+    private static long deferred = 0;
+    private static long merged = 0;
+    private static long dropped = 0;
+
+    private static class Pending {
+        final int notificationId;
+        final Notification notification;
+        final int summaryId;
+        final Notification summary;
+
+        Pending(FirebasePluginMessage message) {
+            notificationId = message.notificationId;
+            notification = message.notification;
+            summaryId = message.groupSummaryId;
+            summary = message.groupSummary;
+        }
+    }
+
+    private static class Bucket {
+        final String channelId;
+        final LinkedList<Pending> pending = new LinkedList<Pending>();
+        double tokens = burst;
+        long lastRefill = SystemClock.elapsedRealtime();
+        boolean scheduled = false;
+        long posted = 0;
+        long deferred = 0;
+        long merged = 0;
+        long dropped = 0;
+
+        Bucket(String channelId) {
+            this.channelId = channelId;
+        }
+
+        void refill() {
+            long now = SystemClock.elapsedRealtime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerMinute / 60000.0);
+            lastRefill = now;
+        }
+
+        boolean take() {
+            if (tokens < 1) return false;
+            tokens -= 1;
+            posted++;
+            FirebasePluginNotificationRateLimiter.posted++;
+            return true;
+        }
+
+        JSONObject toJson() throws JSONException {
+            refill();
+            JSONObject json = new JSONObject();
+            json.put("tokens", tokens);
+            json.put("pending", pending.size());
+            json.put("posted", posted);
+            json.put("deferred", deferred);
+            json.put("merged", merged);
+            json.put("dropped", dropped);
+            return json;
+        }
+    }
+
+    public static synchronized void configure(Context context, CordovaPreferences preferences) {
+        ratePerMinute = Math.max(0, preferences.getInteger("FirebasePluginNotificationRateLimit", 0));
+        burst = Math.max(1, preferences.getInteger("FirebasePluginNotificationRateBurst", DEFAULT_BURST));
+        policy = parsePolicy(preferences.getString("FirebasePluginNotificationRatePolicy", DEFER));
+        context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE).edit()
+                .putInt(PREFERENCES_RATE, ratePerMinute)
+                .putInt(PREFERENCES_BURST, burst)
+                .putString(PREFERENCES_POLICY, policy)
+                .apply();
+    }
+
+    private static void load(Context context) {
+        if (policy != null) return;
+        SharedPreferences settings = context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE);
+        ratePerMinute = settings.getInt(PREFERENCES_RATE, 0);
+        burst = settings.getInt(PREFERENCES_BURST, DEFAULT_BURST);
+        policy = parsePolicy(settings.getString(PREFERENCES_POLICY, DEFER));
+    }
+
+    private static String parsePolicy(String value) {
+        if (MERGE.equals(value) || DROP.equals(value)) return value;
+        if (value != null && !DEFER.equals(value)) {
+            FirebasePluginLog.w(TAG, "Unknown notification rate policy: " + value);
+        }
+        return DEFER;
+    }
+
+    /**
+     * Displays the notification (and group summary) rendered for a message, or defers, merges or drops it if its channel is over the limit.
+     */
+    static void display(Context context, FirebasePluginMessage message) {
+        Context appContext = context.getApplicationContext();
+        synchronized (FirebasePluginNotificationRateLimiter.class) {
+            load(appContext);
+            if (ratePerMinute > 0) {
+                String channelId = message.channelId != null ? message.channelId : FirebasePlugin.defaultChannelId;
+                if (channelId == null) channelId = "default";
+                Bucket bucket = buckets.get(channelId);
+                if (bucket == null) {
+                    bucket = new Bucket(channelId);
+                    buckets.put(channelId, bucket);
+                }
+                bucket.refill();
+                // Anything already deferred goes first, to keep notifications in order
+                if (!bucket.pending.isEmpty() || !bucket.take()) {
+                    limit(appContext, bucket, message);
+                    return;
+                }
+            } else {
+                posted++;
+            }
+        }
+        show(appContext, new Pending(message));
+    }
+
+    private static void limit(Context context, Bucket bucket, FirebasePluginMessage message) {
+        if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "Notification rate limit reached for channel " + bucket.channelId + ": " + policy);
+        if (DROP.equals(policy)) {
+            bucket.dropped++;
+            dropped++;
+            return;
+        }
+        if (MERGE.equals(policy)) {
+            // The latest entry's summary was rendered after those of the entries it replaces, so is the most up to date
+            bucket.merged += bucket.pending.size();
+            merged += bucket.pending.size();
+            bucket.pending.clear();
+        } else if (bucket.pending.size() >= MAX_PENDING) {
+            bucket.pending.removeFirst();
+            bucket.dropped++;
+            dropped++;
+        }
+        bucket.pending.addLast(new Pending(message));
+        bucket.deferred++;
+        deferred++;
+        schedule(context, bucket);
+    }
+
+    private static void schedule(final Context context, final Bucket bucket) {
+        if (bucket.scheduled) return;
+        bucket.scheduled = true;
+        long delay = (long) Math.ceil((1 - bucket.tokens) * 60000.0 / ratePerMinute);
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        handler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                drain(context, bucket);
+            }
+        }, Math.max(0, delay));
+    }
+
+    private static void drain(Context context, Bucket bucket) {
+        List<Pending> ready = new ArrayList<Pending>();
+        synchronized (FirebasePluginNotificationRateLimiter.class) {
+            bucket.scheduled = false;
+            bucket.refill();
+            while (!bucket.pending.isEmpty() && bucket.take()) {
+                ready.add(bucket.pending.removeFirst());
+            }
+            if (!bucket.pending.isEmpty()) {
+                schedule(context, bucket);
+            }
+        }
+        for (Pending pending : ready) {
+            show(context, pending);
+        }
+    }
+
+    private static void show(Context context, Pending pending) {
+        try {
+            NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (pending.notification != null) {
+                if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(TAG, "show notification: "+pending.notification.toString());
+                notificationManager.notify(pending.notificationId, pending.notification);
+            }
+            // Posted after the child, so the group is never left with a summary of messages which aren't shown yet
+            if (pending.summary != null) {
+                notificationManager.notify(pending.summaryId, pending.summary);
+            }
+        } catch (Exception e) {
+            FirebasePlugin.handleExceptionWithoutContext(e);
+        }
+    }
+
+    public static synchronized JSONObject getStats() throws JSONException {
+        JSONObject channels = new JSONObject();
+        for (Bucket bucket : buckets.values()) {
+            channels.put(bucket.channelId, bucket.toJson());
+        }
+        JSONObject stats = new JSONObject();
+        stats.put("ratePerMinute", ratePerMinute);
+        stats.put("burst", burst);
+        stats.put("policy", policy != null ? policy : DEFER);
+        stats.put("posted", posted);
+        stats.put("deferred", deferred);
+        stats.put("merged", merged);
+        stats.put("dropped", dropped);
+        stats.put("channels", channels);
+        return stats;
+    }
+
+    /**
+     * Resets the counters. Deferred notifications are still displayed.
+     */
+    public static synchronized void resetStats() {
+        posted = 0;
+        deferred = 0;
+        merged = 0;
+        dropped = 0;
+        for (Bucket bucket : buckets.values()) {
+            bucket.posted = 0;
+            bucket.deferred = 0;
+            bucket.merged = 0;
+            bucket.dropped = 0;
+        }
+    }
+}
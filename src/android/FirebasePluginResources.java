@@ -0,0 +1,78 @@
+package org.apache.cordova.firebase;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of the app's resource IDs, keyed by resource type and name (e.g. "drawable/notification_icon").
+ * Resources.getIdentifier() looks resources up by name via reflection, which is slow to repeat for every notification,
+ * so both found IDs and misses (0) are cached. The app's resources can't change while the process is running.
+ */
+public class FirebasePluginResources {
+
+    private static final String TAG = "FirebasePlugin";
+
+    private static final Map<String, Integer> resourceIds = new ConcurrentHashMap<String, Integer>();
+
+    // Resolved on first use: the app's launcher activity can't change while the process is running either
+    private static volatile Intent launchIntent = null;
+
+    /**
+     * @return the ID of the named resource in the app's package, or 0 if it doesn't exist
+     */
+    public static int getIdentifier(Context context, String name, String type) {
+        String key = type + "/" + name;
+        Integer id = resourceIds.get(key);
+        if (id == null) {
+            id = context.getResources().getIdentifier(name, type, context.getPackageName());
+            resourceIds.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return URI of the named sound in the app's raw resources
+     */
+    public static Uri getSoundUri(Context context, String name) {
+        int id = getIdentifier(context, name, "raw");
+        if (id == 0) {
+            FirebasePluginLog.w(TAG, "Sound resource not found: raw/" + name);
+            return Uri.parse(ContentResolver.SCHEME_ANDROID_RESOURCE + "://" + context.getPackageName() + "/raw/" + name);
+        }
+        return Uri.parse(ContentResolver.SCHEME_ANDROID_RESOURCE + "://" + context.getPackageName() + "/" + id);
+    }
+
+    /**
+     * @return a new copy of the app's launch intent, flagged to bring the existing activity to the front
+     */
+    public static Intent getLaunchIntent(Context context) {
+        Intent intent = launchIntent;
+        if (intent == null) {
+            intent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+            launchIntent = intent;
+        }
+        return new Intent(intent);
+    }
+
+    /**
+     * Looks up and caches the given resources ahead of their first use.
+     *
+     * @param resources list of resources in "type/name" format, e.g. "drawable/notification_icon"
+     */
+    public static void preload(Context context, String[] resources) {
+        for (String resource : resources) {
+            String[] parts = resource.trim().split("/", 2);
+            if (parts.length != 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+                FirebasePluginLog.w(TAG, "Invalid resource to preload - expected type/name: " + resource);
+                continue;
+            }
+            getIdentifier(context, parts[1], parts[0]);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.apache.cordova.firebase;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.google.firebase.perf.FirebasePerformance;
+import com.google.firebase.perf.metrics.Trace;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timeline of the work done to initialize the plugin, recorded using monotonic timestamps relative to the start of pluginInitialize().
+ * Subsystems which are initialized lazily after startup are appended to the same timeline.
+ *
+ * The startup phases can optionally also be reported as metrics on a Firebase Performance trace:
+ * <preference name="FirebasePluginStartupTrace" value="true" />
+ */
+public class FirebasePluginStartupProfile {
+
+    private static final String TAG = "FirebasePlugin";
+    static final String TRACE_NAME = "firebase_plugin_startup";
+
+    private static long originNanos = SystemClock.elapsedRealtimeNanos();
+    private static long completedNanos = 0;
+    private static final List<Phase> phases = new ArrayList<Phase>();
+    private static Trace trace = null;
+
+    /**
+     * Starts a new timeline, optionally recording it to a Firebase Performance trace.
+     */
+    public static synchronized void begin(boolean recordTrace) {
+        originNanos = SystemClock.elapsedRealtimeNanos();
+        completedNanos = 0;
+        phases.clear();
+        if (recordTrace) {
+            try {
+                trace = FirebasePerformance.getInstance().newTrace(TRACE_NAME);
+                trace.start();
+            } catch (Exception e) {
+                FirebasePluginLog.w(TAG, "Unable to start startup trace", e);
+                trace = null;
+            }
+        }
+    }
+
+    /**
+     * @return timestamp to pass to end() once the phase is complete
+     */
+    public static long start() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Records a phase which began at the given timestamp and has just completed.
+     */
+    public static synchronized void end(String name, long startNanos) {
+        long durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos;
+        phases.add(new Phase(name, Thread.currentThread().getName(), startNanos - originNanos, durationNanos));
+        if (trace != null) {
+            trace.putMetric(name + "_us", durationNanos / 1000);
+        }
+    }
+
+    /**
+     * Marks plugin startup as complete, stopping the Performance trace if one is being recorded.
+     * Phases recorded afterwards (e.g. lazily initialized subsystems) are still added to the timeline.
+     */
+    public static synchronized void complete() {
+        if (completedNanos != 0) return;
+        completedNanos = SystemClock.elapsedRealtimeNanos();
+        if (trace != null) {
+            trace.putMetric("total_us", (completedNanos - originNanos) / 1000);
+            trace.stop();
+            trace = null;
+        }
+    }
+
+    public static synchronized JSONObject toJson() throws JSONException {
+        JSONObject profile = new JSONObject();
+        profile.put("complete", completedNanos != 0);
+        if (completedNanos != 0) {
+            profile.put("totalMs", toMillis(completedNanos - originNanos));
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            // Time between the app process being started and the plugin starting to initialize
+            profile.put("processStartOffsetMs", toMillis(originNanos) - Process.getStartElapsedRealtime());
+        }
+
+        JSONArray phaseList = new JSONArray();
+        for (Phase phase : phases) {
+            JSONObject phaseJson = new JSONObject();
+            phaseJson.put("name", phase.name);
+            phaseJson.put("thread", phase.thread);
+            phaseJson.put("startMs", toMillis(phase.offsetNanos));
+            phaseJson.put("durationMs", toMillis(phase.durationNanos));
+            phaseList.put(phaseJson);
+        }
+        profile.put("phases", phaseList);
+        return profile;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+
+    private static class Phase {
+        final String name;
+        final String thread;
+        final long offsetNanos;
+        final long durationNanos;
+
+        Phase(String name, String thread, long offsetNanos, long durationNanos) {
+            this.name = name;
+            this.thread = thread;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
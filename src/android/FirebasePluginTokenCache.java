@@ -0,0 +1,102 @@
+package org.apache.cordova.firebase;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.firebase.iid.FirebaseInstanceId;
+
+/**
+ * Caches the FCM token and instance ID in memory and SharedPreferences, so repeated reads don't go through the Firebase SDK.
+ * The token is replaced when FCM issues a new one (FirebasePluginMessagingService.onNewToken()) and both are cleared on unregister.
+ *
+ * Cached values are only trusted on the installation which saved them: SharedPreferences may be restored from a backup onto
+ * another device or reinstall, where the token and ID won't be valid, so they're stored with the app's first install time.
+ */
+public class FirebasePluginTokenCache {
+
+    private static final String TAG = "FirebasePlugin";
+    private static final String PREFERENCES_TOKEN = "fcmToken";
+    private static final String PREFERENCES_ID = "fcmInstanceId";
+    private static final String PREFERENCES_INSTALL_TIME = "fcmCacheInstallTime";
+
+    private static boolean loaded = false;
+    private static String token = null;
+    private static String id = null;
+    // First install time of the app, or -1 if unknown (in which case nothing is persisted)
+    private static long installTime = 0;
+
+    /**
+     * @return the current FCM token, or null if one hasn't been issued yet
+     */
+    public static synchronized String getToken(Context context) {
+        load(context);
+        if (token == null) {
+            token = FirebaseInstanceId.getInstance().getToken();
+            if (token != null) save(context);
+        }
+        return token;
+    }
+
+    public static synchronized String getId(Context context) {
+        load(context);
+        if (id == null) {
+            id = FirebaseInstanceId.getInstance().getId();
+            if (id != null) save(context);
+        }
+        return id;
+    }
+
+    /**
+     * Called when FCM issues a new token. A new token can also mean a new instance ID (e.g. after unregistering), so the ID is re-read on next use.
+     */
+    public static synchronized void onNewToken(Context context, String newToken) {
+        load(context);
+        token = newToken;
+        id = null;
+        save(context);
+    }
+
+    public static synchronized void invalidate(Context context) {
+        load(context);
+        token = null;
+        id = null;
+        getSharedPreferences(context).edit()
+                .remove(PREFERENCES_TOKEN)
+                .remove(PREFERENCES_ID)
+                .remove(PREFERENCES_INSTALL_TIME)
+                .apply();
+    }
+
+    private static void load(Context context) {
+        if (loaded) return;
+        loaded = true;
+        installTime = getFirstInstallTime(context);
+        SharedPreferences settings = getSharedPreferences(context);
+        if (installTime != -1 && settings.getLong(PREFERENCES_INSTALL_TIME, 0) == installTime) {
+            token = settings.getString(PREFERENCES_TOKEN, null);
+            id = settings.getString(PREFERENCES_ID, null);
+        }
+    }
+
+    private static void save(Context context) {
+        if (installTime == -1) return;
+        getSharedPreferences(context).edit()
+                .putString(PREFERENCES_TOKEN, token)
+                .putString(PREFERENCES_ID, id)
+                .putLong(PREFERENCES_INSTALL_TIME, installTime)
+                .apply();
+    }
+
+    private static long getFirstInstallTime(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).firstInstallTime;
+        } catch (Exception e) {
+            FirebasePluginLog.w(TAG, "Unable to read app install time", e);
+            return -1;
+        }
+    }
+
+    private static SharedPreferences getSharedPreferences(Context context) {
+        return context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -4,26 +4,68 @@ import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
 import android.os.Bundle;
-import android.util.Log;
+
+import org.apache.cordova.CordovaPreferences;
 
 public class OnNotificationOpenReceiver extends BroadcastReceiver {
 
+    /**
+     * How tapping a notification displayed by the plugin opens the app:
+     * <preference name="FirebasePluginNotificationTapMode" value="activity" />
+     * - broadcast (default): via this receiver, which passes the message to the plugin then starts the app's launch activity
+     * - activity: the notification starts the launch activity directly, and the plugin receives the message via onNewIntent()
+     *   (or the launch intent if the app isn't running), avoiding the broadcast round trip
+     * The preference is persisted so that it also applies to notifications displayed while the app isn't running.
+     */
+    public static final String TAP_MODE_BROADCAST = "broadcast";
+    public static final String TAP_MODE_ACTIVITY = "activity";
+
+    private static final String PREFERENCES_TAP_MODE = "notificationTapMode";
+
+    private static String tapMode = null;
+
+    public static synchronized void configure(Context context, CordovaPreferences preferences) {
+        tapMode = TAP_MODE_ACTIVITY.equals(preferences.getString("FirebasePluginNotificationTapMode", TAP_MODE_BROADCAST)) ? TAP_MODE_ACTIVITY : TAP_MODE_BROADCAST;
+        context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE).edit()
+                .putString(PREFERENCES_TAP_MODE, tapMode)
+                .apply();
+    }
+
+    private static synchronized String getTapMode(Context context) {
+        if (tapMode == null) {
+            String saved = context.getApplicationContext().getSharedPreferences(FirebasePlugin.SETTINGS_NAME, Context.MODE_PRIVATE).getString(PREFERENCES_TAP_MODE, null);
+            tapMode = TAP_MODE_ACTIVITY.equals(saved) ? TAP_MODE_ACTIVITY : TAP_MODE_BROADCAST;
+        }
+        return tapMode;
+    }
+
+    /**
+     * @return the intent to send when a notification for the given message is tapped, according to the tap mode
+     */
+    static PendingIntent createPendingIntent(Context context, Bundle message, int requestCode) {
+        if (TAP_MODE_ACTIVITY.equals(getTapMode(context))) {
+            Intent launchIntent = FirebasePluginResources.getLaunchIntent(context);
+            launchIntent.putExtras(message);
+            return PendingIntent.getActivity(context, requestCode, launchIntent, PendingIntent.FLAG_UPDATE_CURRENT);
+        }
+        Intent intent = new Intent(context, OnNotificationOpenReceiver.class);
+        intent.putExtras(message);
+        return PendingIntent.getBroadcast(context, requestCode, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
     // Called on tapping foreground notification
     @Override
     public void onReceive(Context context, Intent intent) {
         try{
-            PackageManager pm = context.getPackageManager();
-
-            Intent launchIntent = pm.getLaunchIntentForPackage(context.getPackageName());
-            launchIntent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+            FirebasePluginLog.init(context);
+            Intent launchIntent = FirebasePluginResources.getLaunchIntent(context);
 
             Bundle data = intent.getExtras();
             if(!data.containsKey("messageType")) data.putString("messageType", "notification");
             data.putString("tap", FirebasePlugin.inBackground() ? "background" : "foreground");
 
-            Log.d(FirebasePlugin.TAG, "OnNotificationOpenReceiver.onReceive(): "+data.toString());
+            if (FirebasePluginLog.isLoggable(FirebasePluginLog.DEBUG)) FirebasePluginLog.d(FirebasePlugin.TAG, "OnNotificationOpenReceiver.onReceive(): "+data.toString());
 
             FirebasePlugin.sendMessage(data, context);
 
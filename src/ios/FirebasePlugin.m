@@ -2108,6 +2108,15 @@ static NSMutableDictionary* firestoreListeners;
     }];
 }
 
+- (void)createChannels:(CDVInvokedUrlCommand *)command {
+	[self.commandDelegate runInBackground:^{
+        // iOS has no notification channels, so nothing is created
+        NSDictionary *result = @{@"created": @[], @"updated": @[], @"unchanged": @[]};
+        CDVPluginResult *pluginResult = [CDVPluginResult resultWithStatus:CDVCommandStatus_OK messageAsDictionary:result];
+        [self.commandDelegate sendPluginResult:pluginResult callbackId:command.callbackId];
+    }];
+}
+
 - (void)setDefaultChannel:(CDVInvokedUrlCommand *)command {
 	[self.commandDelegate runInBackground:^{
         CDVPluginResult *pluginResult = [CDVPluginResult resultWithStatus:CDVCommandStatus_OK];
@@ -11,6 +11,149 @@ export interface IChannelOptions {
     visibility?: -1 | 0 | 1
 }
 
+export interface ICreateChannelsResult {
+    created: string[]
+    updated: string[]
+    unchanged: string[]
+}
+
+export interface IBatchOperation {
+    action: string
+    args?: any[]
+}
+
+export interface IBatchResult {
+    action: string
+    success: boolean
+    result: any
+}
+
+export interface IStartupPhase {
+    name: string
+    thread: string
+    startMs: number
+    durationMs: number
+}
+
+export interface IStartupProfile {
+    complete: boolean
+    totalMs?: number
+    processStartOffsetMs?: number
+    phases: IStartupPhase[]
+}
+
+export interface ILatencyHistogram {
+    totalMs: number
+    maxMs: number
+    histogram: number[]
+}
+
+export interface IActionMetrics {
+    calls: number
+    completed: number
+    errors: number
+    queueWait: ILatencyHistogram
+    latency: ILatencyHistogram
+}
+
+export interface IPluginMetrics {
+    bucketBoundsMs: number[]
+    actions: { [action: string]: IActionMetrics }
+}
+
+export interface IEventChannelStats {
+    registered: boolean
+    coalescingWindowMs: number
+    maxInFlight: number
+    queueSize: number
+    inFlight: number
+    queueDepth: number
+    largestQueueDepth: number
+    posted: number
+    delivered: number
+    batches: number
+    superseded: number
+    merged: number
+    overflowed: number
+    evicted: number
+    overLimit: number
+}
+
+export interface IExecutorStats {
+    threads: number
+    queueCapacity: number
+    saturationPolicy: string
+    activeThreads: number
+    poolSize: number
+    largestPoolSize: number
+    queueDepth: number
+    completedTasks: number
+    saturatedTasks: number
+}
+
+export interface IMessageReceivedOptions {
+    deferQueued?: boolean
+}
+
+export interface IQueuedMessagesOptions {
+    pageSize?: number
+    cursor?: string
+}
+
+export interface IQueuedMessagesPage {
+    messages: object[]
+    cursor?: string
+}
+
+export interface IMessagePipelineStage {
+    name: string
+    calls: number
+    stopped: number
+    errors: number
+    latency: ILatencyHistogram
+}
+
+export interface IMessagePipelineStats {
+    bucketBoundsMs: number[]
+    stages: IMessagePipelineStage[]
+    total: ILatencyHistogram
+}
+
+export interface IDiagnosticMessage {
+    time: number
+    level: string
+    message: string
+}
+
+export interface ILargeIconCacheStats {
+    entries: number
+    sizeBytes: number
+    maxSizeBytes: number
+    hits: number
+    misses: number
+    evictions: number
+    decodeErrors: number
+}
+
+export interface INotificationRateCounters {
+    posted: number
+    deferred: number
+    merged: number
+    dropped: number
+}
+
+export interface INotificationRateChannelStats extends INotificationRateCounters {
+    tokens: number
+    pending: number
+}
+
+export interface INotificationRateLimiterStats extends INotificationRateCounters {
+    ratePerMinute: number
+    burst: number
+    policy: "defer" | "merge" | "drop"
+    channels: { [channelId: string]: INotificationRateChannelStats }
+}
+
 export interface FirebasePlugin {
     getId(
         success: (value: string) => void,
@@ -33,7 +176,8 @@ export interface FirebasePlugin {
     ): void
     onMessageReceived(
         success: (value: object) => void,
-        error: (err: string) => void
+        error: (err: string) => void,
+        options?: IMessageReceivedOptions
     ): void
     grantPermission(
         success: (value: boolean) => void,
@@ -76,6 +220,11 @@ export interface FirebasePlugin {
         success: () => void,
         error: (err: string) => void
     ): void
+    createChannels(
+        channels: IChannelOptions[],
+        success: (result: ICreateChannelsResult) => void,
+        error: (err: string) => void
+    ): void
     setDefaultChannel(
         channel: IChannelOptions,
         success: () => void,
@@ -239,11 +388,11 @@ export interface FirebasePlugin {
         cacheExpirationSeconds: number,
         success: () => void,
         error: (err: string) => void
-    ): void
+    ): string | null
     fetch(
         success: () => void,
         error: (err: string) => void
-    ): void
+    ): string | null
     activateFetched(
         success: (activated: boolean) => void,
         error: (err: string) => void
@@ -327,13 +476,13 @@ export interface FirebasePlugin {
         collection: string,
         success: (document: object) => void,
         error: (err: string) => void
-    ): void
+    ): string | null
     fetchFirestoreCollection(
         collection: string,
         filters?: [object],
         success?: (collection: object) => void,
         error?: (err: string) => void
-    ): void
+    ): string | null
     listenToDocumentInFirestoreCollection(
         success: (event: object) => void,
         error: (err: string) => void,
@@ -353,5 +502,62 @@ export interface FirebasePlugin {
         error: (err: string) => void,
         listenerId: string
     ): void
+    executeBatch(
+        operations: IBatchOperation[],
+        success: (results: IBatchResult[]) => void,
+        error?: (err: string) => void
+    ): void
+    warmUp(
+        subsystems?: string[],
+        success?: () => void,
+        error?: (err: string) => void
+    ): void
+    getStartupProfile(
+        success: (profile: IStartupProfile) => void,
+        error?: (err: string) => void
+    ): void
+    cancelOperation(
+        operationId: string,
+        success?: () => void,
+        error?: (err: string) => void
+    ): void
+    getPluginMetrics(
+        success: (metrics: IPluginMetrics) => void,
+        error?: (err: string) => void
+    ): void
+    resetPluginMetrics(
+        success?: () => void,
+        error?: (err: string) => void
+    ): void
+    getEventChannelStats(
+        success: (stats: IEventChannelStats) => void,
+        error?: (err: string) => void
+    ): void
+    getExecutorStats(
+        success: (stats: { [subsystem: string]: IExecutorStats }) => void,
+        error?: (err: string) => void
+    ): void
+    getQueuedMessages(
+        options: IQueuedMessagesOptions,
+        success: (page: IQueuedMessagesPage) => void,
+        error?: (err: string) => void
+    ): void
+    getMessagePipelineStats(
+        success: (stats: IMessagePipelineStats) => void,
+        error?: (err: string) => void
+    ): void
+    getDiagnostics(
+        success: (messages: IDiagnosticMessage[]) => void,
+        error?: (err: string) => void,
+        clear?: boolean
+    ): void
+    getLargeIconCacheStats(
+        success: (stats: ILargeIconCacheStats) => void,
+        error?: (err: string) => void
+    ): void
+    getNotificationRateLimiterStats(
+        success: (stats: INotificationRateLimiterStats) => void,
+        error?: (err: string) => void
+    ): void
 }
 declare var FirebasePlugin: FirebasePlugin;
@@ -1,4 +1,10 @@
 var exec = require('cordova/exec');
+var channel = require('cordova/channel');
+
+var isAndroid = cordova.platformId === 'android';
+
+// On Android, native events are delivered in batches over a single long-lived event channel
+var useEventChannel = isAndroid;
 
 var ensureBooleanFn = function (callback){
     return function(result){
@@ -16,6 +22,13 @@ var ensureBoolean = function(value){
 };
 
 var onAuthStateChangeCallback = function(){};
+var onMessageReceivedCallback = function(){};
+var onTokenRefreshCallback = function(){};
+var firestoreListeners = {};
+// Events for listeners whose ID hasn't been returned yet, keyed by listener ID
+var pendingFirestoreListenerEvents = {};
+// IDs of removed listeners, whose late events are dropped rather than held
+var removedFirestoreListeners = {};
 
 /***********************
  * Protected internals
@@ -24,6 +37,91 @@ exports._onAuthStateChange = function(userSignedIn){
     onAuthStateChangeCallback(userSignedIn);
 };
 
+var onNativeEvents = function(events){
+    try{
+        for(var i = 0; i < events.length; i++){
+            dispatchNativeEvent(events[i]);
+        }
+    }finally{
+        // Let the native side know this batch has been handled so it can send the next one
+        exec(null, null, "FirebasePlugin", "acknowledgeEvents", []);
+    }
+};
+
+var dispatchNativeEvent = function(event){
+    switch(event.type){
+        case "authStateChange":
+            exports._onAuthStateChange(event.data);
+            break;
+        case "message":
+            onMessageReceivedCallback(event.data);
+            break;
+        case "tokenRefresh":
+            onTokenRefreshCallback(event.data);
+            break;
+        case "firestoreListener":
+        case "firestoreListenerError":
+            dispatchFirestoreListenerEvent(event);
+            break;
+        case "nativeError":
+            console.error("FirebasePlugin[native]: " + event.data);
+            break;
+    }
+};
+
+var dispatchFirestoreListenerEvent = function(event){
+    var listener = firestoreListeners[event.id];
+    if(!listener){
+        // The native listener is attached before its ID is returned, so its first events can arrive before the ID
+        if(!removedFirestoreListeners[event.id]){
+            (pendingFirestoreListenerEvents[event.id] = pendingFirestoreListenerEvents[event.id] || []).push(event);
+        }
+        return;
+    }
+    if(event.type === "firestoreListener"){
+        listener.success(event.data);
+    }else if(listener.error){
+        listener.error(event.data);
+    }
+};
+
+var operationCount = 0;
+
+// On Android, assigns an ID to an operation which can be passed to cancelOperation() and returns it
+var execCancellable = function(success, error, action, args){
+    if(!isAndroid){
+        exec(success, error, "FirebasePlugin", action, args);
+        return null;
+    }
+    var operationId = "op" + (++operationCount);
+    exec(success, error, "FirebasePlugin", action, args.concat([operationId]));
+    return operationId;
+};
+
+var registerFirestoreListener = function(success, error){
+    return function(result){
+        if(result && result.eventType === "id"){
+            firestoreListeners[result.id] = {success: success, error: error};
+        }
+        success(result);
+        if(result && result.eventType === "id" && pendingFirestoreListenerEvents[result.id]){
+            var pending = pendingFirestoreListenerEvents[result.id];
+            delete pendingFirestoreListenerEvents[result.id];
+            for(var i = 0; i < pending.length; i++){
+                dispatchFirestoreListenerEvent(pending[i]);
+            }
+        }
+    };
+};
+
+if(useEventChannel){
+    channel.onCordovaReady.subscribe(function(){
+        exec(onNativeEvents, function(error){
+            console.error("FirebasePlugin: failed to register event channel: " + error);
+        }, "FirebasePlugin", "registerEventChannel", []);
+    });
+}
+
 /**************
  * Public API
  **************/
@@ -41,11 +139,19 @@ exports.getAPNSToken = function (success, error) {
   exec(success, error, "FirebasePlugin", "getAPNSToken", []);
 };
 
-exports.onMessageReceived = function (success, error) {
-  exec(success, error, "FirebasePlugin", "onMessageReceived", []);
+exports.onMessageReceived = function (success, error, options) {
+  if(useEventChannel){
+    onMessageReceivedCallback = success;
+    success = null;
+  }
+  exec(success, error, "FirebasePlugin", "onMessageReceived", options ? [options] : []);
 };
 
 exports.onTokenRefresh = function (success, error) {
+  if(useEventChannel){
+    onTokenRefreshCallback = success;
+    success = null;
+  }
   exec(success, error, "FirebasePlugin", "onTokenRefresh", []);
 };
 
@@ -99,6 +205,10 @@ exports.createChannel = function (options, success, error) {
     exec(success, error, "FirebasePlugin", "createChannel", [options]);
 };
 
+exports.createChannels = function (channels, success, error) {
+    exec(success, error, "FirebasePlugin", "createChannels", [channels]);
+};
+
 exports.deleteChannel = function (channelID, success, error) {
     exec(success, error, "FirebasePlugin", "deleteChannel", [channelID]);
 };
@@ -139,8 +249,9 @@ exports.fetch = function (cacheExpirationSeconds, success, error) {
     } else {
         error = success;
         success = cacheExpirationSeconds;
+        if(isAndroid) args.push(null);
     }
-    exec(success, error, "FirebasePlugin", "fetch", args);
+    return execCancellable(success, error, "fetch", args);
 };
 
 exports.activateFetched = function (success, error) {
@@ -318,10 +429,10 @@ exports.getCurrentUser = function (success, error) {
 };
 
 exports.reloadCurrentUser = function (success, error) {
-    exec(function(user){
+    return execCancellable(function(user){
         user.emailIsVerified = ensureBoolean(user.emailIsVerified);
         success(user);
-    }, error, "FirebasePlugin", "reloadCurrentUser", []);
+    }, error, "reloadCurrentUser", []);
 };
 
 exports.updateUserProfile = function (profile, success, error) {
@@ -399,20 +510,21 @@ exports.fetchDocumentInFirestoreCollection = function (documentId, collection, s
     if(typeof documentId !== 'string' && typeof documentId !== 'number') return error("'documentId' must be a string or number specifying the Firestore document identifier");
     if(typeof collection !== 'string') return error("'collection' must be a string specifying the Firestore collection name");
 
-    exec(success, error, "FirebasePlugin", "fetchDocumentInFirestoreCollection", [documentId.toString(), collection]);
+    return execCancellable(success, error, "fetchDocumentInFirestoreCollection", [documentId.toString(), collection]);
 };
 
 exports.fetchFirestoreCollection = function (collection, filters, success, error) {
     if(typeof collection !== 'string') return error("'collection' must be a string specifying the Firestore collection name");
     if(filters && (typeof filters !== 'object' || typeof filters.length === 'undefined' || (filters.length && typeof filters[0] !== 'object'))) return error("'filters' must be a array specifying a list of filters (as arrays) to apply to documents in the Firestore collection");
 
-    exec(success, error, "FirebasePlugin", "fetchFirestoreCollection", [collection, filters || []]);
+    return execCancellable(success, error, "fetchFirestoreCollection", [collection, filters || []]);
 };
 
 exports.listenToDocumentInFirestoreCollection = function (success, error, documentId, collection, includeMetadata) {
     if(typeof documentId !== 'string' && typeof documentId !== 'number') return error("'documentId' must be a string or number specifying the Firestore document identifier");
     if(typeof collection !== 'string') return error("'collection' must be a string specifying the Firestore collection name");
 
+    if(useEventChannel) success = registerFirestoreListener(success, error);
     exec(success, error, "FirebasePlugin", "listenToDocumentInFirestoreCollection", [documentId.toString(), collection, includeMetadata]);
 };
 
@@ -420,11 +532,74 @@ exports.listenToFirestoreCollection = function (success, error, collection, filt
     if(typeof collection !== 'string') return error("'collection' must be a string specifying the Firestore collection name");
     if(filters && (typeof filters !== 'object' || typeof filters.length === 'undefined')) return error("'filters' must be a array specifying a list of filters to apply to documents in the Firestore collection");
 
+    if(useEventChannel) success = registerFirestoreListener(success, error);
     exec(success, error, "FirebasePlugin", "listenToFirestoreCollection", [collection, filters, includeMetadata]);
 };
 
 exports.removeFirestoreListener = function (success, error, listenerId) {
     if(typeof listenerId === 'undefined') return error("'listenerId' must be specified");
 
+    delete firestoreListeners[listenerId.toString()];
+    delete pendingFirestoreListenerEvents[listenerId.toString()];
+    removedFirestoreListeners[listenerId.toString()] = true;
     exec(success, error, "FirebasePlugin", "removeFirestoreListener", [listenerId.toString()]);
 };
+
+// Plugin bridge - Android-only
+exports.executeBatch = function (operations, success, error) {
+    if(typeof operations !== 'object' || typeof operations.length !== 'number') return error("'operations' must be an array of objects specifying an 'action' and optional 'args'");
+
+    exec(success, error, "FirebasePlugin", "executeBatch", [operations]);
+};
+
+exports.warmUp = function (subsystems, success, error) {
+    if(subsystems && (typeof subsystems !== 'object' || typeof subsystems.length !== 'number')) return error("'subsystems' must be an array of subsystem names");
+
+    exec(success, error, "FirebasePlugin", "warmUp", [subsystems || []]);
+};
+
+exports.getStartupProfile = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getStartupProfile", []);
+};
+
+exports.cancelOperation = function (operationId, success, error) {
+    if(typeof operationId !== 'string') return error("'operationId' must be a string returned by a cancellable function");
+
+    exec(success, error, "FirebasePlugin", "cancelOperation", [operationId]);
+};
+
+exports.getPluginMetrics = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getPluginMetrics", []);
+};
+
+exports.resetPluginMetrics = function (success, error) {
+    exec(success, error, "FirebasePlugin", "resetPluginMetrics", []);
+};
+
+exports.getEventChannelStats = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getEventChannelStats", []);
+};
+
+exports.getExecutorStats = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getExecutorStats", []);
+};
+
+exports.getQueuedMessages = function (options, success, error) {
+    exec(success, error, "FirebasePlugin", "getQueuedMessages", [options || {}]);
+};
+
+exports.getMessagePipelineStats = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getMessagePipelineStats", []);
+};
+
+exports.getDiagnostics = function (success, error, clear) {
+    exec(success, error, "FirebasePlugin", "getDiagnostics", [!!clear]);
+};
+
+exports.getLargeIconCacheStats = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getLargeIconCacheStats", []);
+};
+
+exports.getNotificationRateLimiterStats = function (success, error) {
+    exec(success, error, "FirebasePlugin", "getNotificationRateLimiterStats", []);
+};